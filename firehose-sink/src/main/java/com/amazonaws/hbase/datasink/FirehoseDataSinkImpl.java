@@ -20,6 +20,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -34,6 +35,7 @@ import org.slf4j.LoggerFactory;
 
 import com.amazonaws.hbase.Constants;
 import com.amazonaws.hbase.DataSink;
+import com.amazonaws.hbase.DataSinkRecord;
 import com.amazonaws.services.kinesisfirehose.AmazonKinesisFirehose;
 import com.amazonaws.services.kinesisfirehose.model.InvalidArgumentException;
 import com.amazonaws.services.kinesisfirehose.model.InvalidKMSResourceException;
@@ -65,10 +67,19 @@ public class FirehoseDataSinkImpl extends DataSink {
 	 * @param config
 	 */
 	public FirehoseDataSinkImpl(Configuration config)  {
+		this(config, FirehoseProducerFactory.getProducer(config));
+	}
+
+	/**
+	 * Constructor with the Firehose client to use, for tests.
+	 * @param config
+	 * @param firehose
+	 */
+	FirehoseDataSinkImpl(Configuration config, AmazonKinesisFirehose firehose)  {
 		super(config);
 		this.configUtil = this.getConfigurationUtil();
 		
-		this.firehose = FirehoseProducerFactory.getProducer(config);
+		this.firehose = firehose;
 		
 		Thread flusher = new Thread(){
 		
@@ -125,7 +136,9 @@ public class FirehoseDataSinkImpl extends DataSink {
 						", recordsize: " + Integer.toString(getRecordSize(record)));
 			}
 		} else {
-		
+			// Queued records outlive this call, while the caller reuses the buffer once we return.
+			record.setData(copy(buffer));
+
 			if (streamListMap.containsKey(streamName) == true) { // Do we have a queue for this stream ?
 				ConcurrentLinkedQueue<Record> recordsList = (ConcurrentLinkedQueue<Record>)streamListMap.get(streamName);
 				if ( recordsList.size() >= Constants.MAX_BATCHED_RECORDS) {
@@ -141,6 +154,78 @@ public class FirehoseDataSinkImpl extends DataSink {
 		}
 	}
 
+	/**
+	 * putRecordsAsync implementation. Records are grouped per delivery stream and sent with PutRecordBatch
+	 * requests of up to MAX_BATCHED_RECORDS records, the returned futures are already completed.
+	 * When batch puts are enabled records are queued and pushed by the periodic flusher instead.
+	 * @param records
+	 * @return
+	 */
+	@Override
+	public List<CompletableFuture<Void>> putRecordsAsync(List<DataSinkRecord> records) {
+		if (configUtil.isBatchPutsEnabled() == true) {
+			return super.putRecordsAsync(records);
+		}
+
+		List<CompletableFuture<Void>> results = new ArrayList<CompletableFuture<Void>>(records.size());
+		for (int i = 0; i < records.size(); i++) {
+			results.add(new CompletableFuture<Void>());
+		}
+		Map<String, List<Integer>> streamIndexes = new HashMap<String, List<Integer>>();
+		for (int i = 0; i < records.size(); i++) {
+			DataSinkRecord record = records.get(i);
+			if (record.getPayload().remaining() > Constants.MAX_RECORD_SIZE_BYTES) {
+				results.get(i).completeExceptionally(new InvalidRecordException("Record size more than 1000KB : " + record.getPayload().remaining()));
+				continue;
+			}
+			String streamName = configUtil.getFirehoseNameFromTableName(record.getTablename());
+			List<Integer> indexes = streamIndexes.get(streamName);
+			if (indexes == null) {
+				indexes = new ArrayList<Integer>();
+				streamIndexes.put(streamName, indexes);
+			}
+			indexes.add(i);
+		}
+
+		for (Map.Entry<String, List<Integer>> stream : streamIndexes.entrySet()) {
+			List<Integer> indexes = stream.getValue();
+			for (int from = 0; from < indexes.size(); from += Constants.MAX_BATCHED_RECORDS) {
+				List<Integer> chunk = indexes.subList(from, Math.min(from + Constants.MAX_BATCHED_RECORDS, indexes.size()));
+				List<Record> batch = new ArrayList<Record>(chunk.size());
+				for (Integer index : chunk) {
+					batch.add(new Record().withData(records.get(index).getPayload()));
+				}
+				long startTime = System.currentTimeMillis();
+				PutRecordBatchRequest putRecordBatchRequest = new PutRecordBatchRequest()
+						.withDeliveryStreamName(stream.getKey())
+						.withRecords(batch);
+				try {
+					PutRecordBatchResult result = firehose.putRecordBatch(putRecordBatchRequest);
+					List<PutRecordBatchResponseEntry> responses = result.getRequestResponses();
+					for (int i = 0; i < chunk.size(); i++) {
+						PutRecordBatchResponseEntry response = responses.get(i);
+						if (response.getRecordId() != null) {
+							results.get(chunk.get(i)).complete(null);
+						} else {
+							results.get(chunk.get(i)).completeExceptionally(
+									new IOException(response.getErrorCode() + ": " + response.getErrorMessage()));
+						}
+					}
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("putRecordBatch failed: " + result.getFailedPutCount() + " out of " + chunk.size() 
+								+ " PutRecordBatch took {} ms ", Long.toString(System.currentTimeMillis() - startTime));
+					}
+				} catch (Exception e) {
+					LOG.error("PutRecordBatch to " + stream.getKey() + " failed", e);
+					for (Integer index : chunk) {
+						results.get(index).completeExceptionally(e);
+					}
+				}
+			}
+		}
+		return results;
+	}
+
 	private synchronized void flush(String streamName) {
 			long startTime = System.currentTimeMillis();
 		
@@ -236,17 +321,24 @@ public class FirehoseDataSinkImpl extends DataSink {
 		
 		List<Entry> entries = new ArrayList<>();
 		for (Entry e : oldEntries) {
-			TableName tableName = e.getKey().getTableName();
-
-			if ( this.getConfigurationUtil().getFirehoseNameFromTableName(tableName.getNameAsString()) != null ) {
+			if (accept(e)) {
 				entries.add(e);
-			} else {
-				LOG.debug("Not mapped to stream: " + tableName.toString());
 			}
 		}
 		return entries;
 	}
 
+	@Override
+	public boolean accept(Entry e) {
+		TableName tableName = e.getKey().getTableName();
+
+		if ( this.getConfigurationUtil().getFirehoseNameFromTableName(tableName.getNameAsString()) != null ) {
+			return true;
+		}
+		LOG.debug("Not mapped to stream: {}", tableName);
+		return false;
+	}
+
 	@Override
 	public boolean supportsTransaction() {
 		return false;
@@ -266,16 +358,23 @@ public class FirehoseDataSinkImpl extends DataSink {
 
 	
 	
+	private static ByteBuffer copy(final ByteBuffer buffer) {
+		ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+		copy.put(buffer.duplicate());
+		copy.flip();
+		return copy;
+	}
+
 	private int getRecordSize(final Record record) {
-		ByteBuffer tdata = record.getData().duplicate();
-		return tdata.array().length;
+		return record.getData().remaining();
 	}
 
+	/**
+	 * Firehose has no partition key, the partition is ignored.
+	 */
 	@Override
 	public void putRecord(ByteBuffer buffer, String tablename, String parition) throws Exception {
-		// Not supported
-		
-		throw new RuntimeException("Not Supported method for Firehose");
+		putRecord(buffer, tablename);
 	}
 
 }
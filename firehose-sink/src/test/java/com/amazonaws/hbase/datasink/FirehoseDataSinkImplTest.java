@@ -0,0 +1,87 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.datasink;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.hbase.ConfigurationUtil;
+import com.amazonaws.hbase.DataSinkRecord;
+import com.amazonaws.services.kinesisfirehose.AbstractAmazonKinesisFirehose;
+import com.amazonaws.services.kinesisfirehose.model.PutRecordBatchRequest;
+import com.amazonaws.services.kinesisfirehose.model.PutRecordBatchResponseEntry;
+import com.amazonaws.services.kinesisfirehose.model.PutRecordBatchResult;
+import com.amazonaws.services.kinesisfirehose.model.PutRecordRequest;
+import com.amazonaws.services.kinesisfirehose.model.PutRecordResult;
+
+public class FirehoseDataSinkImplTest {
+	private List<PutRecordRequest> puts;
+	private Configuration conf;
+	private AbstractAmazonKinesisFirehose firehose;
+
+	@Before
+	public void setUp() {
+		puts = new ArrayList<PutRecordRequest>();
+		conf = new Configuration(false);
+		conf.set(FirehoseConfigurationUtil.REPLICATION_KINESIS_FIREHOSE_TABLE_MAP, "table:stream");
+		conf.set(FirehoseConfigurationUtil.FIREHOSE_REGION, "us-east-1");
+		conf.set(ConfigurationUtil.PARTITION_STRATEGY, "row");
+		firehose = new AbstractAmazonKinesisFirehose() {
+			@Override
+			public synchronized PutRecordResult putRecord(PutRecordRequest request) {
+				puts.add(request);
+				return new PutRecordResult().withRecordId("id" + puts.size());
+			}
+
+			@Override
+			public PutRecordBatchResult putRecordBatch(PutRecordBatchRequest request) {
+				List<PutRecordBatchResponseEntry> responses = new ArrayList<PutRecordBatchResponseEntry>();
+				for (int i = 0; i < request.getRecords().size(); i++) {
+					responses.add(new PutRecordBatchResponseEntry().withRecordId("id" + i));
+				}
+				return new PutRecordBatchResult().withFailedPutCount(0).withRequestResponses(responses);
+			}
+		};
+	}
+
+	@Test
+	public void testBatchPutsIgnorePartition() throws Exception {
+		conf.setBoolean(FirehoseConfigurationUtil.BATCHED, true);
+		FirehoseDataSinkImpl sink = new FirehoseDataSinkImpl(conf, firehose);
+
+		List<DataSinkRecord> records = new ArrayList<DataSinkRecord>();
+		for (int i = 0; i < 3; i++) {
+			records.add(new DataSinkRecord(ByteBuffer.wrap(("record" + i).getBytes(StandardCharsets.UTF_8)),
+					"table", "partition" + i));
+		}
+		List<CompletableFuture<Void>> futures = sink.putRecordsAsync(records);
+
+		assertEquals(3, futures.size());
+		for (CompletableFuture<Void> future : futures) {
+			future.get();
+			assertFalse(future.isCompletedExceptionally());
+		}
+	}
+
+	@Test
+	public void testPutRecordIgnoresPartition() throws Exception {
+		FirehoseDataSinkImpl sink = new FirehoseDataSinkImpl(conf, firehose);
+
+		sink.putRecord(ByteBuffer.wrap("record".getBytes(StandardCharsets.UTF_8)), "table", "partition");
+
+		assertEquals(1, puts.size());
+		assertEquals("stream", puts.get(0).getDeliveryStreamName());
+		assertEquals("record", StandardCharsets.UTF_8.decode(puts.get(0).getRecord().getData()).toString());
+	}
+}
@@ -0,0 +1,119 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.hbase.TableName;
+
+/**
+ * Decides per record whether compressing it is worth the CPU. Records smaller than minSize are
+ * written uncompressed, the codec's framing would often make them larger. For the other records
+ * it keeps a moving average of the compression ratio (compressed / uncompressed size) of each
+ * table, and tables above maxRatio, like tables of already compressed blobs, are written
+ * uncompressed too. Every probeInterval-th of those is still compressed, so a table whose data
+ * changed gets compressed again. Thread safe, concurrent updates of a table's average may lose
+ * a sample.
+ */
+public class AdaptiveCompression {
+	// Weight of the latest record in the moving average.
+	private static final double ALPHA = 0.1;
+
+	private final int minSize;
+	private final double maxRatio;
+	private final int probeInterval;
+	private final ConcurrentMap<TableName, TableRatio> tables = new ConcurrentHashMap<TableName, TableRatio>();
+
+	private final AtomicLong compressed = new AtomicLong();
+	private final AtomicLong skippedSmall = new AtomicLong();
+	private final AtomicLong skippedRatio = new AtomicLong();
+
+	private static class TableRatio {
+		volatile double ratio = Double.NaN;
+		final AtomicLong skipped = new AtomicLong();
+	}
+
+	/**
+	 * @param minSize records below this many uncompressed bytes aren't compressed
+	 * @param maxRatio tables compressing worse than this aren't compressed
+	 * @param probeInterval every that many records of a table that isn't compressed, one is
+	 */
+	public AdaptiveCompression(int minSize, double maxRatio, int probeInterval) {
+		this.minSize = minSize;
+		this.maxRatio = maxRatio;
+		this.probeInterval = Math.max(1, probeInterval);
+	}
+
+	/**
+	 * Should the record be compressed. When it is, report the result with record().
+	 * @param tableName
+	 * @param size uncompressed size of the record
+	 * @return
+	 */
+	public boolean shouldCompress(TableName tableName, int size) {
+		if (size < minSize) {
+			skippedSmall.incrementAndGet();
+			return false;
+		}
+		TableRatio table = getTable(tableName);
+		double ratio = table.ratio;
+		if (Double.isNaN(ratio) || ratio <= maxRatio || table.skipped.incrementAndGet() % probeInterval == 0) {
+			compressed.incrementAndGet();
+			return true;
+		}
+		skippedRatio.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * Update the table's ratio with a compressed record.
+	 * @param tableName
+	 * @param uncompressedSize
+	 * @param compressedSize
+	 */
+	public void record(TableName tableName, int uncompressedSize, int compressedSize) {
+		if (uncompressedSize <= 0) {
+			return;
+		}
+		TableRatio table = getTable(tableName);
+		double ratio = (double) compressedSize / uncompressedSize;
+		double previous = table.ratio;
+		table.ratio = Double.isNaN(previous) ? ratio : previous + ALPHA * (ratio - previous);
+	}
+
+	/**
+	 * @param tableName
+	 * @return the table's average compression ratio, NaN if none of its records was compressed yet.
+	 */
+	public double getRatio(TableName tableName) {
+		TableRatio table = tables.get(tableName);
+		return table == null ? Double.NaN : table.ratio;
+	}
+
+	public long getCompressed() {
+		return compressed.get();
+	}
+
+	public long getSkippedSmall() {
+		return skippedSmall.get();
+	}
+
+	public long getSkippedRatio() {
+		return skippedRatio.get();
+	}
+
+	private TableRatio getTable(TableName tableName) {
+		TableRatio table = tables.get(tableName);
+		if (table == null) {
+			TableRatio created = new TableRatio();
+			table = tables.putIfAbsent(tableName, created);
+			if (table == null) {
+				table = created;
+			}
+		}
+		return table;
+	}
+}
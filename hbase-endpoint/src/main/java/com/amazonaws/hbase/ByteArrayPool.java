@@ -0,0 +1,97 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of byte arrays the WAL entry serializer writes records into. Arrays are borrowed
+ * for one replicate() batch and given back once the sink has acknowledged the records, so the
+ * shipper thread reuses the same few arrays instead of allocating several copies per record.
+ * Arrays larger than maxArraySize are never pooled and are left to the garbage collector, and
+ * the pool never retains more than maxRetainedBytes in total, so an idle region server doesn't
+ * keep the arrays of its largest batch alive.
+ */
+public class ByteArrayPool {
+	/** Size of newly allocated arrays, arrays grow from there as records are written. */
+	public static final int DEFAULT_ARRAY_SIZE = 4 * 1024;
+	/** Larger arrays aren't kept, sinks don't accept records above 1MB anyway. */
+	public static final int DEFAULT_MAX_ARRAY_SIZE = 1024 * 1024;
+	/** Total size of the arrays kept by default. */
+	public static final long DEFAULT_MAX_RETAINED_BYTES = 32L * 1024 * 1024;
+
+	private final BlockingQueue<byte[]> arrays;
+	private final int maxArraySize;
+	private final long maxRetainedBytes;
+	private final AtomicLong retainedBytes = new AtomicLong();
+
+	private final AtomicLong reused = new AtomicLong();
+	private final AtomicLong allocated = new AtomicLong();
+
+	public ByteArrayPool(int maxArrays) {
+		this(maxArrays, DEFAULT_MAX_ARRAY_SIZE);
+	}
+
+	public ByteArrayPool(int maxArrays, int maxArraySize) {
+		this(maxArrays, maxArraySize, DEFAULT_MAX_RETAINED_BYTES);
+	}
+
+	/**
+	 * @param maxArrays maximum number of arrays kept
+	 * @param maxArraySize larger arrays aren't kept
+	 * @param maxRetainedBytes maximum total size of the arrays kept
+	 */
+	public ByteArrayPool(int maxArrays, int maxArraySize, long maxRetainedBytes) {
+		this.arrays = new ArrayBlockingQueue<byte[]>(Math.max(1, maxArrays));
+		this.maxArraySize = maxArraySize;
+		this.maxRetainedBytes = maxRetainedBytes;
+	}
+
+	/**
+	 * Borrow an array from the pool, or allocate a new one if the pool is empty.
+	 * @return an array of at least DEFAULT_ARRAY_SIZE bytes, its content is undefined.
+	 */
+	public byte[] acquire() {
+		byte[] array = arrays.poll();
+		if (array != null) {
+			retainedBytes.addAndGet(-array.length);
+			reused.incrementAndGet();
+			return array;
+		}
+		allocated.incrementAndGet();
+		return new byte[DEFAULT_ARRAY_SIZE];
+	}
+
+	/**
+	 * Give an array back to the pool. It's dropped if the pool is full, holds maxRetainedBytes
+	 * already or the array is too large. The caller must not touch the array afterwards.
+	 * @param array
+	 */
+	public void release(byte[] array) {
+		if (array == null || array.length > maxArraySize) {
+			return;
+		}
+		if (retainedBytes.addAndGet(array.length) > maxRetainedBytes || !arrays.offer(array)) {
+			retainedBytes.addAndGet(-array.length);
+		}
+	}
+
+	public long getReused() {
+		return reused.get();
+	}
+
+	public long getAllocated() {
+		return allocated.get();
+	}
+
+	public int size() {
+		return arrays.size();
+	}
+
+	public long getRetainedBytes() {
+		return retainedBytes.get();
+	}
+}
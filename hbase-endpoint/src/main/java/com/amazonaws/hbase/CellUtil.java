@@ -45,4 +45,42 @@ public class CellUtil {
 		}
 		return destinationOffset + rowLen;
 	}
+
+	public static byte[] cloneQualifier(Cell cell) {
+		byte[] output = new byte[cell.getQualifierLength()];
+		copyQualifierTo(cell, output, 0);
+		return output;
+	}
+
+	public static int copyQualifierTo(Cell cell, byte[] destination, int destinationOffset) {
+		int qlen = cell.getQualifierLength();
+		if (cell instanceof ByteBufferExtendedCell) {
+			ByteBufferUtils.copyFromBufferToArray(destination,
+					((ByteBufferExtendedCell) cell).getQualifierByteBuffer(),
+					((ByteBufferExtendedCell) cell).getQualifierPosition(), destinationOffset, qlen);
+		} else {
+			System.arraycopy(cell.getQualifierArray(), cell.getQualifierOffset(), destination,
+					destinationOffset, qlen);
+		}
+		return destinationOffset + qlen;
+	}
+
+	public static byte[] cloneValue(Cell cell) {
+		byte[] output = new byte[cell.getValueLength()];
+		copyValueTo(cell, output, 0);
+		return output;
+	}
+
+	public static int copyValueTo(Cell cell, byte[] destination, int destinationOffset) {
+		int vlen = cell.getValueLength();
+		if (cell instanceof ByteBufferExtendedCell) {
+			ByteBufferUtils.copyFromBufferToArray(destination,
+					((ByteBufferExtendedCell) cell).getValueByteBuffer(),
+					((ByteBufferExtendedCell) cell).getValuePosition(), destinationOffset, vlen);
+		} else {
+			System.arraycopy(cell.getValueArray(), cell.getValueOffset(), destination, destinationOffset,
+					vlen);
+		}
+		return destinationOffset + vlen;
+	}
 }
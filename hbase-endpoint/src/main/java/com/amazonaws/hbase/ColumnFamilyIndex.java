@@ -0,0 +1,110 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+import org.apache.hadoop.hbase.ByteBufferExtendedCell;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.util.ByteBufferUtils;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Immutable set of column family names that can be probed with a cell without copying the family
+ * out of it. The family bytes are hashed and compared in place, for on-heap cells and for
+ * ByteBufferExtendedCell alike. Tables have a handful of families, so a small open addressing
+ * table is all we need.
+ */
+public class ColumnFamilyIndex {
+	private final byte[][] slots;
+	private final int mask;
+	private final int size;
+
+	public ColumnFamilyIndex(Collection<byte[]> families) {
+		int capacity = Integer.highestOneBit(Math.max(4, families.size() * 4) - 1) << 1;
+		this.slots = new byte[capacity][];
+		this.mask = capacity - 1;
+		int count = 0;
+		for (byte[] family : families) {
+			int i = hash(family, 0, family.length) & mask;
+			while (slots[i] != null && !Bytes.equals(slots[i], family)) {
+				i = (i + 1) & mask;
+			}
+			if (slots[i] == null) {
+				slots[i] = family;
+				count++;
+			}
+		}
+		this.size = count;
+	}
+
+	/**
+	 * Is the family of the cell in this index.
+	 * @param cell
+	 * @return
+	 */
+	public boolean contains(Cell cell) {
+		int length = cell.getFamilyLength();
+		if (cell instanceof ByteBufferExtendedCell) {
+			ByteBuffer buffer = ((ByteBufferExtendedCell) cell).getFamilyByteBuffer();
+			int position = ((ByteBufferExtendedCell) cell).getFamilyPosition();
+			int i = hash(buffer, position, length) & mask;
+			for (byte[] slot = slots[i]; slot != null; slot = slots[i = (i + 1) & mask]) {
+				if (ByteBufferUtils.equals(buffer, position, length, slot, 0, slot.length)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		byte[] array = cell.getFamilyArray();
+		int offset = cell.getFamilyOffset();
+		int i = hash(array, offset, length) & mask;
+		for (byte[] slot = slots[i]; slot != null; slot = slots[i = (i + 1) & mask]) {
+			if (Bytes.equals(array, offset, length, slot, 0, slot.length)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Is the family in this index.
+	 * @param family
+	 * @return
+	 */
+	public boolean contains(byte[] family) {
+		int i = hash(family, 0, family.length) & mask;
+		for (byte[] slot = slots[i]; slot != null; slot = slots[i = (i + 1) & mask]) {
+			if (Bytes.equals(family, slot)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private static int hash(byte[] bytes, int offset, int length) {
+		int hash = 1;
+		for (int i = offset; i < offset + length; i++) {
+			hash = 31 * hash + bytes[i];
+		}
+		return spread(hash);
+	}
+
+	private static int hash(ByteBuffer buffer, int position, int length) {
+		int hash = 1;
+		for (int i = position; i < position + length; i++) {
+			hash = 31 * hash + buffer.get(i);
+		}
+		return spread(hash);
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+}
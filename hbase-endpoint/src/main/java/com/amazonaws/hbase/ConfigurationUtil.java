@@ -5,6 +5,11 @@ package com.amazonaws.hbase;
 
 //import java.io.IOException;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
 import org.apache.hadoop.conf.Configuration;
 //import org.apache.hadoop.hbase.util.CommonFSUtils;
 import org.slf4j.Logger;
@@ -12,6 +17,12 @@ import org.slf4j.LoggerFactory;
 
 //import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.TableName;
+
+import com.amazonaws.hbase.serde.CompressionCodec;
+import com.amazonaws.hbase.serde.CompressionCodecs;
+import com.amazonaws.hbase.serde.RecordFormat;
+import com.amazonaws.hbase.serde.WALEntryProjection;
 
 
 
@@ -30,8 +41,101 @@ public class ConfigurationUtil {
 	
 	public static final String COMPRESSION_ENABLED = 
 			BASE_HBASE+".compression-enabled";
-	
+
+	/** Compression codec of the records, see CompressionCodecs. Takes precedence over COMPRESSION_ENABLED */
+	public static final String COMPRESSION_CODEC =
+			BASE_HBASE+".compression-codec";
+
+	/** Compression level of the gzip and zstd codecs */
+	public static final String COMPRESSION_LEVEL =
+			BASE_HBASE+".compression-level";
+
+	/** Only compress records that are large enough, of tables that compress well */
+	public static final String ADAPTIVE_COMPRESSION_ENABLED =
+			BASE_HBASE+".adaptive-compression.enabled";
+
+	/** Records below this uncompressed size aren't compressed */
+	public static final String ADAPTIVE_COMPRESSION_MIN_SIZE =
+			BASE_HBASE+".adaptive-compression.min-size";
+
+	/** Tables whose average compressed / uncompressed size is above this aren't compressed */
+	public static final String ADAPTIVE_COMPRESSION_MAX_RATIO =
+			BASE_HBASE+".adaptive-compression.max-ratio";
+
+	/** One in that many records of a table that isn't compressed is, to notice when its ratio improves */
+	public static final String ADAPTIVE_COMPRESSION_PROBE_INTERVAL =
+			BASE_HBASE+".adaptive-compression.probe-interval";
+
+	/** Directory zstd dictionaries are published to, enables per table dictionaries with the zstd codec */
+	public static final String ZSTD_DICTIONARY_DIR =
+			BASE_HBASE+".zstd-dictionary.dir";
+
+	/** Maximum size of a zstd dictionary in bytes */
+	public static final String ZSTD_DICTIONARY_SIZE =
+			BASE_HBASE+".zstd-dictionary.size";
+
+	/** Bytes of uncompressed records of a table sampled to train its zstd dictionary */
+	public static final String ZSTD_DICTIONARY_SAMPLE_BYTES =
+			BASE_HBASE+".zstd-dictionary.sample-bytes";
+
+	/** Age after which the zstd dictionary of a table is retrained */
+	public static final String ZSTD_DICTIONARY_MAX_AGE_MS =
+			BASE_HBASE+".zstd-dictionary.max-age.ms";
+
+	/** Number of threads serializing and compressing WAL entries. 1 serializes on the shipper thread. */
+	public static final String SERIALIZATION_THREADS =
+			BASE_HBASE+".serialization.threads";
+
+	/** How long the local table descriptors used by the drop filters are cached */
+	public static final String DESCRIPTOR_CACHE_TTL_MS =
+			BASE_HBASE+".descriptor-cache.ttl.ms";
+
+	/** How many local table descriptors are cached */
+	public static final String DESCRIPTOR_CACHE_MAX_SIZE =
+			BASE_HBASE+".descriptor-cache.max-size";
+
+	/** How many serialization buffers are kept for reuse across replicate() calls */
+	public static final String BUFFER_POOL_SIZE =
+			BASE_HBASE+".buffer-pool.size";
+
+	public static final int DEFAULT_BUFFER_POOL_SIZE = 256;
+
+	/** Maximum total size of the serialization buffers kept for reuse */
+	public static final String BUFFER_POOL_MAX_BYTES =
+			BASE_HBASE+".buffer-pool.max-bytes";
+
+	/** Format of the records pushed to the data sink, see RecordFormat */
+	public static final String RECORD_FORMAT =
+			BASE_HBASE+".record-format";
+
+	/** Prefix records with a RecordEnvelope header naming their format and compression */
+	public static final String RECORD_ENVELOPE_ENABLED =
+			BASE_HBASE+".record-envelope-enabled";
+
+	/** Maximum number of entries packed into one batch record, 1 writes one record per entry */
+	public static final String BATCH_MAX_ENTRIES =
+			BASE_HBASE+".batch.max-entries";
+
+	/** Maximum size of the cells packed into one batch record, before encoding and compression */
+	public static final String BATCH_MAX_BYTES =
+			BASE_HBASE+".batch.max-bytes";
+
+	/** How records are partitioned in the stream, see PartitionStrategy */
+	public static final String PARTITION_STRATEGY =
+			BASE_HBASE+".partition-strategy";
+
+	/**
+	 * Optional WAL key and edit fields written to the records, see WALEntryProjection.
+	 * PROJECTION + "." + table name overrides it for one table.
+	 */
+	public static final String PROJECTION =
+			BASE_HBASE+".projection";
+
 	protected Configuration conf;
+
+	// Parsed projections by table, looked up for every entry.
+	private final ConcurrentMap<TableName, WALEntryProjection> projections =
+			new ConcurrentHashMap<TableName, WALEntryProjection>();
 	
 	private boolean dropOnDeletedTables;
 	private boolean dropOnDeletedColumnFamilies;
@@ -84,5 +188,233 @@ public class ConfigurationUtil {
 	public boolean isCompressionEnabled() {
 		return this.conf.getBoolean(COMPRESSION_ENABLED,false);
 	}
-	
+
+	/**
+	 * Codec the records are compressed with. Without COMPRESSION_CODEC, gzip if compression is
+	 * enabled and none otherwise.
+	 * Default: none
+	 * @return
+	 * @throws IllegalArgumentException if the codec is unknown.
+	 */
+	public CompressionCodec getCompressionCodec() {
+		String name = this.conf.get(COMPRESSION_CODEC);
+		if (name == null || name.trim().isEmpty()) {
+			return isCompressionEnabled() ? CompressionCodecs.GZIP : CompressionCodecs.NONE;
+		}
+		return CompressionCodecs.forName(name, getCompressionLevel());
+	}
+
+	/**
+	 * Compression level of the codecs that take one.
+	 * Default: the codec's default level
+	 * @return
+	 */
+	public int getCompressionLevel() {
+		return this.conf.getInt(COMPRESSION_LEVEL, CompressionCodecs.DEFAULT_LEVEL);
+	}
+
+	/**
+	 * Is adaptive compression enabled.
+	 * Default: false
+	 * @return
+	 */
+	public boolean isAdaptiveCompressionEnabled() {
+		return this.conf.getBoolean(ADAPTIVE_COMPRESSION_ENABLED, false);
+	}
+
+	/**
+	 * Minimum uncompressed record size for compression.
+	 * Default: 256
+	 * @return
+	 */
+	public int getAdaptiveCompressionMinSize() {
+		return this.conf.getInt(ADAPTIVE_COMPRESSION_MIN_SIZE, 256);
+	}
+
+	/**
+	 * Maximum average compression ratio of a table for compression.
+	 * Default: 0.9
+	 * @return
+	 */
+	public double getAdaptiveCompressionMaxRatio() {
+		return this.conf.getDouble(ADAPTIVE_COMPRESSION_MAX_RATIO, 0.9);
+	}
+
+	/**
+	 * Records of an uncompressed table between two compressed ones.
+	 * Default: 100
+	 * @return
+	 */
+	public int getAdaptiveCompressionProbeInterval() {
+		return this.conf.getInt(ADAPTIVE_COMPRESSION_PROBE_INTERVAL, 100);
+	}
+
+	/**
+	 * Directory zstd dictionaries are published to.
+	 * Default: null, dictionaries are disabled
+	 * @return
+	 */
+	public String getZstdDictionaryDir() {
+		return this.conf.get(ZSTD_DICTIONARY_DIR);
+	}
+
+	/**
+	 * Maximum size of a zstd dictionary.
+	 * Default: 16384
+	 * @return
+	 */
+	public int getZstdDictionarySize() {
+		return this.conf.getInt(ZSTD_DICTIONARY_SIZE, 16 * 1024);
+	}
+
+	/**
+	 * Bytes of records sampled to train a zstd dictionary.
+	 * Default: 1048576
+	 * @return
+	 */
+	public int getZstdDictionarySampleBytes() {
+		return this.conf.getInt(ZSTD_DICTIONARY_SAMPLE_BYTES, 1024 * 1024);
+	}
+
+	/**
+	 * Age after which a zstd dictionary is retrained.
+	 * Default: 86400000 (1 day)
+	 * @return
+	 */
+	public long getZstdDictionaryMaxAge() {
+		return this.conf.getLong(ZSTD_DICTIONARY_MAX_AGE_MS, 24 * 60 * 60 * 1000L);
+	}
+
+	/**
+	 * Size of the serialization worker pool.
+	 * Default: 1
+	 * @return
+	 */
+	public int getSerializationThreads() {
+		return Math.max(1, this.conf.getInt(SERIALIZATION_THREADS, 1));
+	}
+
+	/**
+	 * TTL of the cached local table descriptors.
+	 * Default: 60000
+	 * @return
+	 */
+	public long getDescriptorCacheTtl() {
+		return this.conf.getLong(DESCRIPTOR_CACHE_TTL_MS, 60000L);
+	}
+
+	/**
+	 * Maximum number of cached local table descriptors.
+	 * Default: 1000
+	 * @return
+	 */
+	public int getDescriptorCacheMaxSize() {
+		return this.conf.getInt(DESCRIPTOR_CACHE_MAX_SIZE, 1000);
+	}
+
+	/**
+	 * Maximum number of pooled serialization buffers.
+	 * Default: 256
+	 * @return
+	 */
+	public int getBufferPoolSize() {
+		return Math.max(1, this.conf.getInt(BUFFER_POOL_SIZE, DEFAULT_BUFFER_POOL_SIZE));
+	}
+
+	/**
+	 * Maximum total size of the pooled serialization buffers.
+	 * Default: 33554432
+	 * @return
+	 */
+	public long getBufferPoolMaxBytes() {
+		return this.conf.getLong(BUFFER_POOL_MAX_BYTES, ByteArrayPool.DEFAULT_MAX_RETAINED_BYTES);
+	}
+
+	/**
+	 * Format of the records pushed to the data sink.
+	 * Default: json
+	 * @return
+	 */
+	public RecordFormat getRecordFormat() {
+		return RecordFormat.fromString(this.conf.get(RECORD_FORMAT));
+	}
+
+	/**
+	 * Are records prefixed with a RecordEnvelope header.
+	 * Default: false
+	 * @return
+	 */
+	public boolean isRecordEnvelopeEnabled() {
+		return this.conf.getBoolean(RECORD_ENVELOPE_ENABLED, false);
+	}
+
+	/**
+	 * Maximum number of consecutive entries of a table packed into one batch record.
+	 * Default: 1, batching disabled
+	 * @return
+	 */
+	public int getBatchMaxEntries() {
+		return Math.max(1, this.conf.getInt(BATCH_MAX_ENTRIES, 1));
+	}
+
+	/**
+	 * Maximum serialized size of the cells of a batch record, a single larger entry still gets
+	 * its own record.
+	 * Default: 262144
+	 * @return
+	 */
+	public long getBatchMaxBytes() {
+		return this.conf.getLong(BATCH_MAX_BYTES, 256 * 1024);
+	}
+
+	/**
+	 * How records are partitioned in the stream.
+	 * Default: none
+	 * @return
+	 * @throws IllegalArgumentException if there is no such strategy.
+	 */
+	public PartitionStrategy getPartitionStrategy() {
+		return PartitionStrategy.fromString(this.conf.get(PARTITION_STRATEGY));
+	}
+
+	/**
+	 * Optional fields written to the records of a table, from PROJECTION.table or else PROJECTION.
+	 * Default: all
+	 * @param tableName
+	 * @return
+	 * @throws IllegalArgumentException if the projection names an unknown field.
+	 */
+	public WALEntryProjection getProjection(TableName tableName) {
+		return projections.computeIfAbsent(tableName, t -> WALEntryProjection.parse(
+				this.conf.get(PROJECTION + "." + t.getNameAsString(), this.conf.get(PROJECTION))));
+	}
+
+	/**
+	 * Is a projection configured for at least one table.
+	 * @return
+	 */
+	public boolean isProjectionConfigured() {
+		return !getProjectionProperties().isEmpty();
+	}
+
+	/**
+	 * Parse every PROJECTION and PROJECTION.table property, so a typo fails the endpoint's init
+	 * instead of every entry of the table.
+	 * @throws IllegalArgumentException naming the property, if a projection names an unknown field.
+	 */
+	public void checkProjections() {
+		for (Map.Entry<String, String> property : getProjectionProperties().entrySet()) {
+			try {
+				WALEntryProjection.parse(property.getValue());
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Invalid " + property.getKey() + "=" + property.getValue()
+						+ ": " + e.getMessage(), e);
+			}
+		}
+	}
+
+	private Map<String, String> getProjectionProperties() {
+		return this.conf.getValByRegex("^" + Pattern.quote(PROJECTION) + "(\\..+)?$");
+	}
+
 }
@@ -4,7 +4,11 @@
 package com.amazonaws.hbase;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.wal.WAL;
@@ -45,7 +49,69 @@ public abstract class DataSink {
 	 * @throws Exception if the data push failed and exception is raised.
 	 */
 	public abstract void putRecord(ByteBuffer buffer,String tablename,String parition) throws Exception;
-	
+
+	/**
+	 * This method will push a record to the stream without waiting for the stream to acknowledge it.
+	 * The future completes when the record is durable in the stream, or completes exceptionally
+	 * if the push failed. The default calls the blocking putRecord and returns a completed future,
+	 * so implementations that can pipeline their sends should override it.
+	 * @param record The record to be pushed into the stream
+	 * @return a future that completes on acknowledgement.
+	 */
+	public CompletableFuture<Void> putRecordAsync(DataSinkRecord record) {
+		CompletableFuture<Void> future = new CompletableFuture<Void>();
+		try {
+			if (record.getPartition() == null) {
+				putRecord(record.getPayload(), record.getTablename());
+			} else {
+				putRecord(record.getPayload(), record.getTablename(), record.getPartition());
+			}
+			future.complete(null);
+		} catch (Exception e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * This method will push a whole batch of records to the stream without waiting. The replication
+	 * endpoint calls it once per replicate() with every entry that passed the filters and then waits
+	 * for all the futures together. The default fires putRecordAsync for every record, implementations
+	 * can override it with the batch API of their stream.
+	 * @param records The records to be pushed into the stream
+	 * @return One future per record, in the same order as records.
+	 */
+	public List<CompletableFuture<Void>> putRecordsAsync(List<DataSinkRecord> records) {
+		List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>(records.size());
+		for (DataSinkRecord record : records) {
+			futures.add(putRecordAsync(record));
+		}
+		return futures;
+	}
+
+	/**
+	 * This method will push a whole batch of records to the stream and block until all of them
+	 * are acknowledged or failed.
+	 * @param records The records to be pushed into the stream
+	 * @return One result per record, in the same order as records.
+	 */
+	public List<DataSinkRecordResult> putRecords(List<DataSinkRecord> records) {
+		List<CompletableFuture<Void>> futures = putRecordsAsync(records);
+		List<DataSinkRecordResult> results = new ArrayList<DataSinkRecordResult>(futures.size());
+		for (CompletableFuture<Void> future : futures) {
+			try {
+				future.get();
+				results.add(DataSinkRecordResult.success());
+			} catch (ExecutionException e) {
+				results.add(DataSinkRecordResult.failure(e.getCause()));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				results.add(DataSinkRecordResult.failure(e));
+			}
+		}
+		return results;
+	}
+
 	/**
 	 * block on flush for any remaining record in to be push into the stream.
 	 */
@@ -59,6 +125,17 @@ public abstract class DataSink {
 	 */
 	public abstract List<WAL.Entry> filter(List<WAL.Entry> filter);
 
+	/**
+	 * Per entry form of filter, used by the replication endpoint so it can apply every filter in one
+	 * pass over the batch. The default asks filter with a single entry list, implementations should
+	 * override it with a check that doesn't allocate.
+	 * @param entry
+	 * @return true if the entry can be replicated to this data sink.
+	 */
+	public boolean accept(WAL.Entry entry) {
+		return !filter(Collections.singletonList(entry)).isEmpty();
+	}
+
 	/**
 	 * Returns an instance of configuration.
 	 * @return
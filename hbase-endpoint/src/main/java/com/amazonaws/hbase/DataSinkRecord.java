@@ -0,0 +1,48 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A single serialized WAL entry on its way to a DataSink, with the table it belongs to
+ * and an optional partition.
+ */
+public class DataSinkRecord {
+	private final ByteBuffer payload;
+	private final String tablename;
+	private final String partition;
+
+	/**
+	 * Record without a partition. The data sink picks its own partitioning.
+	 * @param payload The data to be pushed into the stream
+	 * @param tablename The HBase table name this data belongs to.
+	 */
+	public DataSinkRecord(ByteBuffer payload, String tablename) {
+		this(payload, tablename, null);
+	}
+
+	/**
+	 * @param payload The data to be pushed into the stream
+	 * @param tablename The HBase table name this data belongs to.
+	 * @param partition A string to partition records inside stream, or null.
+	 */
+	public DataSinkRecord(ByteBuffer payload, String tablename, String partition) {
+		this.payload = payload;
+		this.tablename = tablename;
+		this.partition = partition;
+	}
+
+	public ByteBuffer getPayload() {
+		return payload;
+	}
+
+	public String getTablename() {
+		return tablename;
+	}
+
+	public String getPartition() {
+		return partition;
+	}
+}
@@ -0,0 +1,36 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase;
+
+/**
+ * Outcome of pushing one DataSinkRecord. Results are returned in the same order as the records.
+ */
+public class DataSinkRecordResult {
+	private static final DataSinkRecordResult SUCCESS = new DataSinkRecordResult(null);
+
+	private final Throwable error;
+
+	private DataSinkRecordResult(Throwable error) {
+		this.error = error;
+	}
+
+	public static DataSinkRecordResult success() {
+		return SUCCESS;
+	}
+
+	public static DataSinkRecordResult failure(Throwable error) {
+		return new DataSinkRecordResult(error);
+	}
+
+	public boolean isSuccessful() {
+		return error == null;
+	}
+
+	/**
+	 * @return the cause of the failure, or null when successful.
+	 */
+	public Throwable getError() {
+		return error;
+	}
+}
@@ -0,0 +1,77 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.MurmurHash3;
+import org.apache.hadoop.hbase.util.RowBloomHashKey;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+
+/**
+ * How records are partitioned in the stream, selected with hbase.replication.partition-strategy.
+ * The data sink keeps the records of a partition in order, a Kinesis shard or a Kafka partition
+ * is picked by the hash of the partition, so consumers get the updates of a partition in the
+ * order they were written.
+ */
+public enum PartitionStrategy {
+	/** No partition, the data sink picks its own. Records of a row may arrive in any order. The default. */
+	NONE {
+		@Override
+		public String getPartition(Entry entry) {
+			return null;
+		}
+	},
+	/**
+	 * Hash of the row key of the entry's first cell. An entry holding the cells of several rows,
+	 * like a multi-row batch mutation, stays one record in the partition of its first row, so
+	 * the updates of its other rows may be ordered differently than the ones in their own
+	 * partitions.
+	 */
+	ROW {
+		@Override
+		public String getPartition(Entry entry) {
+			List<Cell> cells = entry.getEdit().getCells();
+			if (cells.isEmpty()) {
+				return REGION.getPartition(entry);
+			}
+			return Integer.toHexString(MurmurHash3.getInstance().hash(new RowBloomHashKey(cells.get(0)), 0));
+		}
+	},
+	/** Encoded name of the region the entry was written by. */
+	REGION {
+		@Override
+		public String getPartition(Entry entry) {
+			return Bytes.toString(entry.getKey().getEncodedRegionName());
+		}
+	},
+	/** Name of the table, all the records of a table go to the same partition. */
+	TABLE {
+		@Override
+		public String getPartition(Entry entry) {
+			return entry.getKey().getTableName().getNameAsString();
+		}
+	};
+
+	/**
+	 * @param entry
+	 * @return the partition of the entry's record, null to let the data sink choose.
+	 */
+	public abstract String getPartition(Entry entry);
+
+	/**
+	 * @param name case insensitive, null or empty for NONE
+	 * @return
+	 * @throws IllegalArgumentException if there is no such strategy.
+	 */
+	public static PartitionStrategy fromString(String name) {
+		if (name == null || name.trim().isEmpty()) {
+			return NONE;
+		}
+		return valueOf(name.trim().toUpperCase(Locale.ROOT));
+	}
+}
@@ -0,0 +1,84 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable output stream writing into an array borrowed from a ByteArrayPool. Unlike
+ * ByteArrayOutputStream the written bytes are handed out without a copy, as a ByteBuffer
+ * wrapping the pooled array. Not thread safe.
+ */
+public class PooledByteArrayOutputStream extends OutputStream {
+	private final ByteArrayPool pool;
+	private byte[] buf;
+	private int count;
+
+	public PooledByteArrayOutputStream(ByteArrayPool pool) {
+		this.pool = pool;
+		this.buf = pool.acquire();
+	}
+
+	@Override
+	public void write(int b) {
+		ensureCapacity(count + 1);
+		buf[count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		ensureCapacity(count + len);
+		System.arraycopy(b, off, buf, count, len);
+		count += len;
+	}
+
+	/**
+	 * The bytes written so far. The buffer shares the pooled array, give it back with
+	 * ByteArrayPool.release(buffer.array()) once it's no longer used.
+	 * @return
+	 */
+	public ByteBuffer toByteBuffer() {
+		return ByteBuffer.wrap(buf, 0, count);
+	}
+
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Start over, keeping the array. Bytes handed out by toByteBuffer() get overwritten.
+	 */
+	public void reset() {
+		count = 0;
+	}
+
+	/**
+	 * Write the bytes written so far to another stream.
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(buf, 0, count);
+	}
+
+	// Closing doesn't release the array, the ByteBuffer handed out still points to it.
+	@Override
+	public void close() {
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= buf.length) {
+			return;
+		}
+		if (capacity < 0) {
+			throw new OutOfMemoryError("Record too large");
+		}
+		byte[] old = buf;
+		buf = Arrays.copyOf(old, Math.max(capacity, old.length << 1));
+		pool.release(old);
+	}
+}
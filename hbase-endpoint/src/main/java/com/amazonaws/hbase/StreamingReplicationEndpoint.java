@@ -5,6 +5,7 @@ package com.amazonaws.hbase;
 
 import org.apache.hadoop.hbase.wal.WAL.Entry;
 import org.apache.hadoop.hbase.wal.WALEdit;
+import org.apache.hadoop.hbase.wal.WALKey;
 
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.replication.BaseReplicationEndpoint;
@@ -16,31 +17,42 @@ import org.apache.hadoop.hbase.client.Admin;
 import org.apache.hadoop.hbase.client.Connection;
 import org.apache.hadoop.hbase.client.ConnectionFactory;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Threads;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.amazonaws.hbase.serde.CompressionCodec;
+import com.amazonaws.hbase.serde.CompressionCodecs;
+import com.amazonaws.hbase.serde.RecordFormat;
+import com.amazonaws.hbase.serde.WALEntryEncoder;
+import com.amazonaws.hbase.serde.ZstdDictionaryStore;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
-import java.util.zip.GZIPOutputStream;
-
-import com.amazonaws.hbase.model.HBaseWALEntry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 public class StreamingReplicationEndpoint extends BaseReplicationEndpoint {
 	private static final Logger LOG = LoggerFactory.getLogger(StreamingReplicationEndpoint.class);
@@ -51,8 +63,28 @@ public class StreamingReplicationEndpoint extends BaseReplicationEndpoint {
 	protected WALEntryFilter filters;
 
 	protected ObjectMapper objectMapper = new ObjectMapper();
+	protected WALEntrySerializer serializer;
+	protected ExecutorService serializerPool;
+	protected int batchMaxEntries = 1;
+	protected AdaptiveCompression adaptiveCompression;
+	protected ZstdDictionaryManager dictionaryManager;
+	protected long batchMaxBytes;
+	protected PartitionStrategy partitionStrategy = PartitionStrategy.NONE;
 	Connection localConn;
 	Admin localAdmin;
+	protected TableDescriptorCache descriptorCache;
+
+	/** Counters of the replication source metrics, entries dropped by each filter. */
+	public static final String METRIC_DROPPED_TABLE_EDITS = "streamingDroppedTableEdits";
+	public static final String METRIC_DROPPED_COLUMN_FAMILY_EDITS = "streamingDroppedColumnFamilyEdits";
+	public static final String METRIC_DROPPED_NOT_MAPPED_EDITS = "streamingDroppedNotMappedEdits";
+	public static final String METRIC_DROPPED_FILTERED_EDITS = "streamingDroppedFilteredEdits";
+
+	// Entries dropped by each filter since the endpoint started.
+	private final AtomicLong droppedTableEdits = new AtomicLong();
+	private final AtomicLong droppedColumnFamilyEdits = new AtomicLong();
+	private final AtomicLong droppedNotMappedEdits = new AtomicLong();
+	private final AtomicLong droppedFilteredEdits = new AtomicLong();
 
 	protected MetricsSource metrics;
 
@@ -78,9 +110,66 @@ public class StreamingReplicationEndpoint extends BaseReplicationEndpoint {
 		objectMapper.configure(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES, false);
 		objectMapper.configure(DeserializationFeature.FAIL_ON_NUMBERS_FOR_ENUMS, false);
 
+		RecordFormat recordFormat = configUtil.getRecordFormat();
+		configUtil.checkProjections();
+		if (configUtil.isProjectionConfigured() && !recordFormat.supportsProjection()) {
+			LOG.warn("{} records don't support {}, writing every field", recordFormat, ConfigurationUtil.PROJECTION);
+		}
+		CompressionCodec codec = configUtil.getCompressionCodec();
+		this.batchMaxEntries = configUtil.getBatchMaxEntries();
+		this.batchMaxBytes = configUtil.getBatchMaxBytes();
+		this.partitionStrategy = configUtil.getPartitionStrategy();
+		WALEntryEncoder encoder = recordFormat.newEncoder(configUtil::getProjection);
+		Function<TableName, CompressionCodec> codecs = tableName -> codec;
+		boolean dictionaries = false;
+		if (configUtil.getZstdDictionaryDir() != null) {
+			if (codec.getId() == CompressionCodecs.ZSTD_ID) {
+				this.dictionaryManager = new ZstdDictionaryManager(
+						new ZstdDictionaryStore(configUtil.getZstdDictionaryDir(), ctx.getConfiguration(),
+								configUtil.getCompressionLevel()),
+						codec, configUtil.getZstdDictionarySize(), configUtil.getZstdDictionarySampleBytes(),
+						configUtil.getZstdDictionaryMaxAge(), configUtil.getCompressionLevel());
+				encoder = dictionaryManager.samplingEncoder(encoder);
+				codecs = dictionaryManager::getCodec;
+				dictionaries = true;
+			} else {
+				LOG.warn("{} only applies to the zstd codec, ignored for {}", ConfigurationUtil.ZSTD_DICTIONARY_DIR,
+						codec.getName());
+			}
+		}
+		if (configUtil.isAdaptiveCompressionEnabled() && codec != CompressionCodecs.NONE) {
+			this.adaptiveCompression = new AdaptiveCompression(configUtil.getAdaptiveCompressionMinSize(),
+					configUtil.getAdaptiveCompressionMaxRatio(), configUtil.getAdaptiveCompressionProbeInterval());
+		}
+		// Consumers tell batch records from single entry records, the dictionary of a record and
+		// whether it's compressed at all by its envelope.
+		boolean envelope = configUtil.isRecordEnvelopeEnabled() || batchMaxEntries > 1 || dictionaries
+				|| adaptiveCompression != null;
+		ByteArrayPool pool = new ByteArrayPool(configUtil.getBufferPoolSize(), ByteArrayPool.DEFAULT_MAX_ARRAY_SIZE,
+				configUtil.getBufferPoolMaxBytes());
+		this.serializer = new WALEntrySerializer(encoder, codecs, pool, envelope ? recordFormat : null,
+				adaptiveCompression);
+		LOG.info("Replicating WAL entries as " + recordFormat + ", compression: " + codec.getName()
+				+ (dictionaries ? " with table dictionaries in " + configUtil.getZstdDictionaryDir() : "")
+				+ (adaptiveCompression != null ? ", adaptive" : "")
+				+ ", record envelope: " + envelope + ", entries per record: " + batchMaxEntries
+				+ ", partitioned by: " + partitionStrategy);
+		int threads = configUtil.getSerializationThreads();
+		if (threads > 1) {
+			// Bounded queue and caller-runs, so a slow pool pushes back on the shipper thread
+			// instead of piling up serialized entries.
+			this.serializerPool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+					new ArrayBlockingQueue<Runnable>(threads * 64),
+					Threads.newDaemonThreadFactory("StreamingReplicationEndpoint-serializer"),
+					new ThreadPoolExecutor.CallerRunsPolicy());
+			LOG.info("Serializing WAL entries with {} threads", threads);
+		}
+
 
 		localConn = ConnectionFactory.createConnection(ctx.getLocalConfiguration());
 		localAdmin = localConn.getAdmin();
+		descriptorCache = new TableDescriptorCache(localAdmin,
+				configUtil.getDescriptorCacheTtl(), configUtil.getDescriptorCacheMaxSize());
 	}
 
 	@Override
@@ -94,6 +183,12 @@ public class StreamingReplicationEndpoint extends BaseReplicationEndpoint {
 	protected void doStop() {
 		// Required to ensure that HBase knows the endpoint has stopped
 		dataSink.flush();
+		if (serializerPool != null) {
+			serializerPool.shutdown();
+		}
+		if (dictionaryManager != null) {
+			dictionaryManager.shutdown();
+		}
 		notifyStopped();
 	}
 
@@ -109,65 +204,137 @@ public class StreamingReplicationEndpoint extends BaseReplicationEndpoint {
 		LOG.info("replication entries: " + replicateContext.getEntries().size());
 		String WALId = replicateContext.getWalGroupId();
 
-		List<Entry> entries = new LinkedList<Entry>();
-		//List<Entry> oldEntries = this.filterNotMappedToStream(replicateContext.getEntries());
-		List<Entry> oldEntries=this.filterNotExistColumnFamilyEdits(this.filterNotExistTableEdits(replicateContext.getEntries()));
-			
-		for (Entry e: this.dataSink.filter(oldEntries)) {
-			Entry tmp = filters.filter(e);
+		// Table, column family, sink mapping and WALEntryFilter checks are applied in one pass per
+		// entry, only the entries that pass all of them are collected.
+		List<Entry> oldEntries = replicateContext.getEntries();
+		List<Entry> entries = new ArrayList<Entry>(oldEntries.size());
+		int droppedTables = 0;
+		int droppedColumnFamilies = 0;
+		int droppedNotMapped = 0;
+		int droppedFiltered = 0;
+		for (Entry e : oldEntries) {
+			if (!filterNotExistTableEdit(e)) {
+				droppedTables++;
+				continue;
+			}
+			Entry tmp = filterNotExistColumnFamilyEdit(e);
+			if (tmp == null) {
+				droppedColumnFamilies++;
+				continue;
+			}
+			if (!dataSink.accept(tmp)) {
+				droppedNotMapped++;
+				continue;
+			}
+			tmp = filters.filter(tmp);
 			if ( tmp != null ) { 
 				entries.add(tmp); 
-				LOG.debug("Replication entry added:" + e.getKey().toString());
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Replication entry added:" + e.getKey().toString());
+				}
 			} else {
-				LOG.debug("Replication entry Filtered:" + e.getKey().toString());
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Replication entry Filtered:" + e.getKey().toString());
+				}
 				metrics.incrLogEditsFiltered();
-				
+				droppedFiltered++;
 			}
 		}
+		droppedTableEdits.addAndGet(droppedTables);
+		droppedColumnFamilyEdits.addAndGet(droppedColumnFamilies);
+		droppedNotMappedEdits.addAndGet(droppedNotMapped);
+		droppedFilteredEdits.addAndGet(droppedFiltered);
+		incrDropped(METRIC_DROPPED_TABLE_EDITS, droppedTables);
+		incrDropped(METRIC_DROPPED_COLUMN_FAMILY_EDITS, droppedColumnFamilies);
+		incrDropped(METRIC_DROPPED_NOT_MAPPED_EDITS, droppedNotMapped);
+		incrDropped(METRIC_DROPPED_FILTERED_EDITS, droppedFiltered);
+		if (droppedTables > 0) {
+			LOG.warn("DropppedTableFitred records: {}", Integer.toString(droppedTables));
+		}
+		if (droppedColumnFamilies > 0) {
+			LOG.warn("ColumnFamilyFitred records: {}", Integer.toString(droppedColumnFamilies));
+		}
+		descriptorCache.updateMetrics(metrics);
 
 		LOG.debug("entry size Before filter " + oldEntries.size() + " after filters:" + entries.size());
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Dropped entries, deleted table: " + droppedTables + ", deleted column family: "
+					+ droppedColumnFamilies + ", not mapped: " + droppedNotMapped + ", filtered: " + droppedFiltered);
+			LOG.debug("Table descriptor cache hits: " + descriptorCache.getHits()
+					+ ", misses: " + descriptorCache.getMisses() + ", size: " + descriptorCache.size());
+			if (adaptiveCompression != null) {
+				LOG.debug("Records compressed: " + adaptiveCompression.getCompressed() + ", not compressed as too small: "
+						+ adaptiveCompression.getSkippedSmall() + ", for the table's ratio: "
+						+ adaptiveCompression.getSkippedRatio());
+			}
+		}
 
 		try {
-			if ( dataSink.supportsTransaction()) {
-				dataSink.beginTransaction();
+			List<List<Entry>> batches = batch(entries);
+			List<DataSinkRecord> records;
+			try {
+				records = serialize(batches);
+			} catch (JsonProcessingException e1) {
+				LOG.error("Object could not be converted to json" + " " + formatStackTrace(e1));
+				return false;
+			} catch (IOException e1) {
+				LOG.error("Unable to serialize entries " + formatStackTrace(e1));
+				return false;
 			}
 
-			for (Entry entry : entries) {
-				String tname = entry.getKey().getTableName().getNameAsString();
-				HBaseWALEntry hbaseWALEntry = new HBaseWALEntry(entry);
-				
-				ByteBuffer data;
+			List<CompletableFuture<Void>> futures = null;
+			try {
+				// The transaction only spans the sends, a sink that runs one transaction at a time
+				// doesn't wait for our serialization.
+				if ( dataSink.supportsTransaction()) {
+					dataSink.beginTransaction();
+				}
+
+				// Fire every send for the batch, then wait once for all the acknowledgements. If any record
+				// failed we return false and HBase will ship the batch again, so the sink sees it at-least-once.
+				futures = dataSink.putRecordsAsync(records);
 				try {
-					byte[] outputData;
-					if (this.configUtil.isCompressionEnabled()) {
-						outputData = gzipCompress(objectMapper.writeValueAsString(hbaseWALEntry).getBytes("UTF-8"));
+					CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).get();
+				} catch (ExecutionException e) {
+					// failures are counted per record below.
+				}
+				int failed = 0;
+				for (int i = 0; i < futures.size(); i++) {
+					CompletableFuture<Void> future = futures.get(i);
+					if (future.isCompletedExceptionally() == false) {
+						for (Entry entry : batches.get(i)) {
+							WALKey key = entry.getKey();
+							metrics.incrCompletedWAL();
+							metrics.setAgeOfLastShippedOp(key.getWriteTime(), WALId);
+							metrics.setAgeOfLastShippedOpByTable(key.getWriteTime(), key.getTableName().getNameAsString());
+						}
 					} else {
-						outputData = objectMapper.writeValueAsString(hbaseWALEntry).getBytes("UTF-8");
+						failed++;
+						try {
+							future.get();
+						} catch (ExecutionException e) {
+							LOG.error("Failed to put record for table " + records.get(i).getTablename(), e.getCause());
+						}
 					}
-					
-					data = ByteBuffer.wrap(outputData);
-					dataSink.putRecord(data,tname);
-					metrics.incrCompletedWAL();
-					metrics.setAgeOfLastShippedOp(hbaseWALEntry.getWalKey().getWriteTime(), WALId);
-					metrics.setAgeOfLastShippedOpByTable(hbaseWALEntry.getWalKey().getWriteTime(),hbaseWALEntry.getWalKey().getTableName());
-				} catch (UnsupportedEncodingException e1) {
-					LOG.error("Encoding is set to UTF-8 but it is not supported. " + " " + formatStackTrace(e1));
-					dataSink.abortTransaction();
-					throw new RuntimeException(e1.getStackTrace().toString());
-				} catch (JsonProcessingException e1) {
-					LOG.error("Object could not be converted to json" + " " + formatStackTrace(e1));
-					dataSink.abortTransaction();
-					throw new RuntimeException(e1.getStackTrace().toString());
-				} catch (IOException e1) {
-					e1.printStackTrace();
+				}
+				if (failed > 0) {
+					LOG.error("{} out of {} records failed to replicate, batch will be retried.", failed, records.size());
 					dataSink.abortTransaction();
 					return false;
 				}
+				dataSink.commitTransaction();
+			} finally {
+				// Once every future is done, or the sink never got the records, it doesn't hold on to
+				// the payloads any more. Records a sink may still be sending are left to the GC.
+				if (futures == null || isDone(futures)) {
+					release(records);
+				}
 			}
-			dataSink.commitTransaction();
 		} catch ( Exception e ) {
-			e.printStackTrace();
 			LOG.error("Unhandled Exception: " + e.getMessage() + " " + formatStackTrace(e));
+			if ( dataSink.supportsTransaction()) {
+				dataSink.abortTransaction();
+			}
 			return false;
 		}
 
@@ -187,80 +354,224 @@ public class StreamingReplicationEndpoint extends BaseReplicationEndpoint {
 	}
 	
 	/**
-	 * Returns GZip compressed of a byte[]
-	 * 
-	 * @param bytes bytes to compress
-	 * @return 		gzip compressed results of input
-	 * @throws IOException
+	 * Groups the entries into the records sent to the sink. Consecutive entries of the same table
+	 * and partition share a record, up to batchMaxEntries entries and batchMaxBytes of cells, so
+	 * the entries of a region keep their order across records.
+	 *
+	 * @param entries filtered entries of the batch
+	 * @return the entries of each record, one entry per record when batching is disabled.
 	 */
-	private byte[] gzipCompress(byte[] bytes) throws IOException {
-		ByteArrayOutputStream byteStream = new ByteArrayOutputStream(bytes.length);
-		GZIPOutputStream zipStream = new GZIPOutputStream(byteStream);
-		zipStream.write(bytes);
-		zipStream.close();
-		byteStream.close();
-		return byteStream.toByteArray();
-		
+	protected List<List<Entry>> batch(final List<Entry> entries) {
+		List<List<Entry>> batches = new ArrayList<List<Entry>>(batchMaxEntries > 1 ? 16 : entries.size());
+		List<Entry> batch = null;
+		long batchBytes = 0;
+		String batchPartition = null;
+		for (Entry entry : entries) {
+			long size = batchMaxEntries > 1 ? entry.getEdit().estimatedSerializedSizeOf() : 0;
+			String partition = batchMaxEntries > 1 ? partitionStrategy.getPartition(entry) : null;
+			if (batch == null || batch.size() >= batchMaxEntries || batchBytes + size > batchMaxBytes
+					|| !batch.get(0).getKey().getTableName().equals(entry.getKey().getTableName())
+					|| !Objects.equals(batchPartition, partition)) {
+				batch = new ArrayList<Entry>(Math.min(batchMaxEntries, entries.size()));
+				batches.add(batch);
+				batchBytes = 0;
+				batchPartition = partition;
+			}
+			batch.add(entry);
+			batchBytes += size;
+		}
+		return batches;
 	}
 
-	protected List<Entry> filterNotExistColumnFamilyEdits(final List<Entry> oldEntries) {
-		if (configUtil.isDropOnDeletedColumnFamilies() == false) {
-			return oldEntries;
+	/**
+	 * Serializes the batches into sink records. With more than one serialization thread the batches
+	 * are serialized in parallel, but the records are always returned in the order of the batches,
+	 * so the entries of a region reach the sink in their sequence id order.
+	 *
+	 * @param batches filtered entries of the batch, grouped by batch()
+	 * @return one record per batch, in the same order, partitioned by the partitionStrategy
+	 * @throws IOException if any entry could not be serialized
+	 */
+	protected List<DataSinkRecord> serialize(final List<List<Entry>> batches) throws IOException {
+		List<DataSinkRecord> records = new ArrayList<DataSinkRecord>(batches.size());
+		if (serializerPool == null || batches.size() < 2) {
+			try {
+				for (List<Entry> batch : batches) {
+					records.add(newRecord(serializeBatch(batch), batch));
+				}
+			} catch (IOException | RuntimeException e) {
+				release(records);
+				throw e;
+			}
+			return records;
 		}
-		List<Entry> entries = new ArrayList<Entry>();
-		Map<TableName, Set<byte[]>> existColumnFamilyMap = new HashMap<>();
 
+		// Set when a batch failed, the batches that didn't start yet are skipped.
+		final AtomicBoolean failed = new AtomicBoolean();
+		List<Future<ByteBuffer>> futures = new ArrayList<Future<ByteBuffer>>(batches.size());
+		for (final List<Entry> batch : batches) {
+			futures.add(serializerPool.submit(new Callable<ByteBuffer>() {
+				@Override
+				public ByteBuffer call() throws Exception {
+					return failed.get() ? null : serializeBatch(batch);
+				}
+			}));
+		}
+		try {
+			for (int i = 0; i < batches.size(); i++) {
+				records.add(newRecord(futures.get(i).get(), batches.get(i)));
+			}
+		} catch (ExecutionException e) {
+			failed.set(true);
+			releaseAll(futures);
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		} catch (InterruptedException e) {
+			failed.set(true);
+			releaseAll(futures);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while serializing entries");
+		}
+		return records;
+	}
 
-		for (Entry e : oldEntries ) {
-			TableName tableName = e.getKey().getTableName();
-			if (!existColumnFamilyMap.containsKey(tableName)) {
+	private ByteBuffer serializeBatch(List<Entry> batch) throws IOException {
+		return batchMaxEntries > 1 ? serializer.serialize(batch) : serializer.serialize(batch.get(0));
+	}
+
+	private DataSinkRecord newRecord(ByteBuffer payload, List<Entry> batch) {
+		Entry first = batch.get(0);
+		return new DataSinkRecord(payload, first.getKey().getTableName().getNameAsString(),
+				partitionStrategy.getPartition(first));
+	}
+
+	// Gives back the payloads of the batches that were serialized before one of them failed. Waits
+	// for the batches still running, they finish quickly and would otherwise keep their arrays.
+	private void releaseAll(List<Future<ByteBuffer>> futures) {
+		boolean interrupted = false;
+		for (Future<ByteBuffer> future : futures) {
+			while (true) {
 				try {
-					Set<byte[]> cfs = localAdmin.getDescriptor(tableName).getColumnFamilyNames();
-					existColumnFamilyMap.put(tableName, cfs);
-				} catch (Exception ex) {
-					LOG.warn("Exception getting cf names for local table {}", tableName, ex);
-					// if catch any exception, we are not sure about table's description,
-					// so replicate raw entry
-					entries.add(e);
-					continue;
+					serializer.release(future.get());
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					break;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static boolean isDone(List<CompletableFuture<Void>> futures) {
+		for (CompletableFuture<Void> future : futures) {
+			if (!future.isDone()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void release(List<DataSinkRecord> records) {
+		for (DataSinkRecord record : records) {
+			serializer.release(record.getPayload());
+		}
+	}
+
+	/**
+	 * Drops the cells of column families that don't exist in the local table any more.
+	 * @param e
+	 * @return the entry, a copy of it holding only the cells of existing families, or null
+	 * if none of its cells are left.
+	 */
+	protected Entry filterNotExistColumnFamilyEdit(final Entry e) {
+		if (configUtil.isDropOnDeletedColumnFamilies() == false) {
+			return e;
+		}
+		TableName tableName = e.getKey().getTableName();
+		ColumnFamilyIndex existColumnFamilies;
+		try {
+			existColumnFamilies = descriptorCache.getColumnFamilyIndex(tableName);
+		} catch (Exception ex) {
+			LOG.warn("Exception getting cf names for local table {}", tableName, ex);
+			existColumnFamilies = null;
+		}
+		if (existColumnFamilies == null) {
+			// if catch any exception, or the table is gone, we are not sure about table's description,
+			// so replicate raw entry
+			return e;
+		}
+
+		WALEdit walEdit = filterColumnFamilies(e, existColumnFamilies);
+
+		// A family may have been added after we cached the descriptor, look again once.
+		if (walEdit != e.getEdit()
+				&& descriptorCache.invalidateIfLoadedBefore(tableName, e.getKey().getWriteTime())) {
+			try {
+				ColumnFamilyIndex refreshed = descriptorCache.getColumnFamilyIndex(tableName);
+				if (refreshed != null) {
+					existColumnFamilies = refreshed;
+					walEdit = filterColumnFamilies(e, refreshed);
 				}
+			} catch (Exception ex) {
+				LOG.warn("Exception getting cf names for local table {}", tableName, ex);
 			}
+		}
+
+		if (walEdit == e.getEdit()) {
+			return e;
+		}
+
+		// Would potentially be better to retry in one of the outer loops
+		// and add a table filter there; but that would break the encapsulation,
+		// so we're doing the filtering here.
+		LOG.warn(
+				"Missing column family detected at replicate, local column family also does not exist,"
+						+ " filtering edits for table '{}',column family '{}'", tableName,
+				missingColumnFamilies(e, existColumnFamilies));
 
-			Set<byte[]> existColumnFamilies = existColumnFamilyMap.get(tableName);
-			Set<byte[]> missingCFs = new HashSet<>();
-			WALEdit walEdit = new WALEdit();
+		return walEdit.isEmpty() ? null : new Entry(e.getKey(), walEdit);
+	}
 
-			for (Cell cell: e.getEdit().getCells() ) {
-				if (configUtil.isReplicationBulkLoadDataEnabled() && Bytes.equals(cell.getQualifierArray(),"HBASE::BULK_LOAD".getBytes())) {
-					walEdit.add(cell);
+	// Hot loop, the family and qualifier are matched in place without copying them out of the cell.
+	// Returns the edit of the entry itself when every cell is kept, a new edit is only built once
+	// a cell of a missing family shows up.
+	private WALEdit filterColumnFamilies(Entry e, ColumnFamilyIndex existColumnFamilies) {
+		List<Cell> cells = e.getEdit().getCells();
+		WALEdit walEdit = null;
+		for (int i = 0; i < cells.size(); i++) {
+			Cell cell = cells.get(i);
+			boolean keep = existColumnFamilies.contains(cell)
+					|| (configUtil.isReplicationBulkLoadDataEnabled()
+							&& org.apache.hadoop.hbase.CellUtil.matchingQualifier(cell, WALEdit.BULK_LOAD));
+			if (walEdit == null) {
+				if (keep) {
 					continue;
 				}
-				if (existColumnFamilies.contains(CellUtil.cloneFamily(cell))) {
-					walEdit.add(cell);
-				} else {
-					missingCFs.add(CellUtil.cloneFamily(cell));
+				walEdit = new WALEdit(cells.size() - 1, e.getEdit().isReplay());
+				for (int j = 0; j < i; j++) {
+					walEdit.add(cells.get(j));
 				}
+			} else if (keep) {
+				walEdit.add(cell);
 			}
+		}
+		return walEdit == null ? e.getEdit() : walEdit;
+	}
 
-			if (!walEdit.isEmpty()) {
-				Entry newEntry = new Entry(e.getKey(), walEdit);
-				entries.add(newEntry);
-			}
-
-			if (!missingCFs.isEmpty()) {
-				// Would potentially be better to retry in one of the outer loops
-				// and add a table filter there; but that would break the encapsulation,
-				// so we're doing the filtering here.
-				LOG.warn(
-						"Missing column family detected at replicate, local column family also does not exist,"
-								+ " filtering edits for table '{}',column family '{}'", tableName, missingCFs);
+	private Set<String> missingColumnFamilies(Entry e, ColumnFamilyIndex existColumnFamilies) {
+		Set<String> missingCFs = new HashSet<>();
+		for (Cell cell : e.getEdit().getCells()) {
+			if (!existColumnFamilies.contains(cell)) {
+				missingCFs.add(Bytes.toStringBinary(CellUtil.cloneFamily(cell)));
 			}
 		}
-		long count = oldEntries.size() - entries.size();
-		if (count > 0) {
-			LOG.warn("ColumnFamilyFitred records: {}",Long.toString(count));
-		}
-		return entries;
+		return missingCFs;
 	}
 
 	@Override
@@ -268,43 +579,58 @@ public class StreamingReplicationEndpoint extends BaseReplicationEndpoint {
 		return this.ctx.getClusterId();
 	}
 
-	protected List<Entry> filterNotExistTableEdits(final List<Entry> oldEntries) {
+	/**
+	 * Checks that the table of the entry still exists locally.
+	 * @param e
+	 * @return false if the entry belongs to a deleted table and should be dropped.
+	 */
+	protected boolean filterNotExistTableEdit(final Entry e) {
 		if (configUtil.isDropOnDeletedTables() == false) {
-			return oldEntries;
+			return true;
 		}
-		List<Entry> entries = new ArrayList<>();
-		Map<TableName, Boolean> existMap = new HashMap<>();
-
-		for (Entry e : oldEntries) {
-			TableName tableName = e.getKey().getTableName();
-			boolean exist = true;
-			if (existMap.containsKey(tableName)) {
-				exist = existMap.get(tableName);
-			} else {
-				try {
-					exist = localAdmin.tableExists(tableName);
-					existMap.put(tableName, exist);
-				} catch (IOException iox) {
-					LOG.warn("Exception checking for local table " + tableName + " " + formatStackTrace(iox));
-					// we can't drop edits without full assurance, so we assume table exists.
-					exist = true;
-				}
-			}
-			if (exist) {
-				entries.add(e);
-			} else {
-				// Would potentially be better to retry in one of the outer loops
-				// and add a table filter there; but that would break the encapsulation,
-				// so we're doing the filtering here.
-				LOG.warn("Missing table detected at replication, local table does not exist, "
-						+ "filtering edits for table '{}'", tableName);
+		TableName tableName = e.getKey().getTableName();
+		boolean exist = true;
+		try {
+			exist = descriptorCache.tableExists(tableName);
+			// The table may have been created again after we cached it as missing, look again once.
+			if (!exist && descriptorCache.invalidateIfLoadedBefore(tableName, e.getKey().getWriteTime())) {
+				exist = descriptorCache.tableExists(tableName);
 			}
+		} catch (IOException iox) {
+			LOG.warn("Exception checking for local table " + tableName + " " + formatStackTrace(iox));
+			// we can't drop edits without full assurance, so we assume table exists.
+			exist = true;
 		}
-		long count = oldEntries.size() - entries.size();
-		if (count > 0) {
-			LOG.warn("DropppedTableFitred records: {}",Long.toString(count));
+		if (!exist) {
+			// Would potentially be better to retry in one of the outer loops
+			// and add a table filter there; but that would break the encapsulation,
+			// so we're doing the filtering here.
+			LOG.warn("Missing table detected at replication, local table does not exist, "
+					+ "filtering edits for table '{}'", tableName);
 		}
-		return entries;
+		return exist;
+	}
+
+	private void incrDropped(String counter, int dropped) {
+		if (dropped > 0) {
+			metrics.incCounters(counter, dropped);
+		}
+	}
+
+	public long getDroppedTableEdits() {
+		return droppedTableEdits.get();
+	}
+
+	public long getDroppedColumnFamilyEdits() {
+		return droppedColumnFamilyEdits.get();
+	}
+
+	public long getDroppedNotMappedEdits() {
+		return droppedNotMappedEdits.get();
+	}
+
+	public long getDroppedFilteredEdits() {
+		return droppedFilteredEdits.get();
 	}
 
 	private String formatStackTrace(Exception ex) {
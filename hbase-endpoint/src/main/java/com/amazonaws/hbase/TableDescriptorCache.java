@@ -0,0 +1,166 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.TableNotFoundException;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.replication.regionserver.MetricsSource;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches table existence and column family names of the local tables across replicate() calls,
+ * so the deleted table and column family filters don't ask the master for every batch.
+ * Entries expire after a TTL, the cache holds at most maxSize tables (least recently used are
+ * evicted first) and callers invalidate a table when they suspect the cached value is stale.
+ */
+public class TableDescriptorCache {
+	private static final Logger LOG = LoggerFactory.getLogger(TableDescriptorCache.class);
+
+	/** Gauges of the replication source metrics, see updateMetrics. */
+	public static final String METRIC_HITS = "streamingDescriptorCacheHits";
+	public static final String METRIC_MISSES = "streamingDescriptorCacheMisses";
+	public static final String METRIC_SIZE = "streamingDescriptorCacheSize";
+
+	private final Admin admin;
+	private final long ttlMs;
+	private final Map<TableName, CachedTable> cache;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	static class CachedTable {
+		final boolean exists;
+		final ColumnFamilyIndex families;
+		final long loadedAt;
+
+		CachedTable(boolean exists, ColumnFamilyIndex families, long loadedAt) {
+			this.exists = exists;
+			this.families = families;
+			this.loadedAt = loadedAt;
+		}
+	}
+
+	public TableDescriptorCache(Admin admin, long ttlMs, final int maxSize) {
+		this.admin = admin;
+		this.ttlMs = ttlMs;
+		this.cache = new LinkedHashMap<TableName, CachedTable>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<TableName, CachedTable> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Does the table exist in the local cluster.
+	 * @param tableName
+	 * @return
+	 * @throws IOException if the master could not be asked.
+	 */
+	public boolean tableExists(TableName tableName) throws IOException {
+		return get(tableName).exists;
+	}
+
+	/**
+	 * Column family names of a local table.
+	 * @param tableName
+	 * @return an index of the family names, or null if the table doesn't exist.
+	 * @throws IOException if the master could not be asked.
+	 */
+	public ColumnFamilyIndex getColumnFamilyIndex(TableName tableName) throws IOException {
+		return get(tableName).families;
+	}
+
+	/**
+	 * Drop the cached descriptor of a table.
+	 * @param tableName
+	 */
+	public void invalidate(TableName tableName) {
+		synchronized (cache) {
+			cache.remove(tableName);
+		}
+	}
+
+	/**
+	 * Drop the cached descriptor of a table if it was loaded before the given time. Used when an
+	 * edit written after we looked at the table doesn't match the descriptor we have.
+	 * @param tableName
+	 * @param time epoch millis
+	 * @return true if the cached descriptor was dropped.
+	 */
+	public boolean invalidateIfLoadedBefore(TableName tableName, long time) {
+		synchronized (cache) {
+			CachedTable cached = cache.get(tableName);
+			if (cached != null && cached.loadedAt < time) {
+				cache.remove(tableName);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Publish the hits and misses since the cache was created and its size as gauges of the
+	 * replication source metrics.
+	 * @param metrics
+	 */
+	public void updateMetrics(MetricsSource metrics) {
+		metrics.setGauge(METRIC_HITS, getHits());
+		metrics.setGauge(METRIC_MISSES, getMisses());
+		metrics.setGauge(METRIC_SIZE, size());
+	}
+
+	private CachedTable get(TableName tableName) throws IOException {
+		long now = EnvironmentEdgeManager.currentTime();
+		synchronized (cache) {
+			CachedTable cached = cache.get(tableName);
+			if (cached != null && now - cached.loadedAt < ttlMs) {
+				hits.incrementAndGet();
+				return cached;
+			}
+		}
+		misses.incrementAndGet();
+
+		// Not holding the lock while we talk to the master.
+		CachedTable loaded;
+		try {
+			loaded = new CachedTable(true,
+					new ColumnFamilyIndex(admin.getDescriptor(tableName).getColumnFamilyNames()), now);
+		} catch (TableNotFoundException e) {
+			loaded = new CachedTable(false, null, now);
+		} catch (IOException e) {
+			invalidate(tableName);
+			throw e;
+		}
+		LOG.debug("Loaded descriptor of table {}, exists: {}", tableName, loaded.exists);
+		synchronized (cache) {
+			cache.put(tableName, loaded);
+		}
+		return loaded;
+	}
+}
@@ -0,0 +1,241 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+
+import com.amazonaws.hbase.serde.CompressionCodec;
+import com.amazonaws.hbase.serde.CompressionCodecs;
+import com.amazonaws.hbase.serde.RecordEnvelope;
+import com.amazonaws.hbase.serde.RecordFormat;
+import com.amazonaws.hbase.serde.WALEntryBinaryFormat;
+import com.amazonaws.hbase.serde.WALEntryEncoder;
+import com.amazonaws.hbase.serde.WALEntryJsonEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Turns a WAL entry into the payload pushed to the data sink. Instances are thread safe, so the
+ * replication endpoint can serialize the entries of a batch in parallel.
+ *
+ * The WALEntryEncoder of the configured record format writes straight from the entry's cells
+ * into an array borrowed from a ByteArrayPool, through the configured CompressionCodec, and the
+ * returned buffer wraps that array. Callers give the array back with release() once the sink is done with
+ * the payload. With the record envelope enabled every payload starts with an uncompressed
+ * RecordEnvelope header naming the record format and compression.
+ *
+ * serialize(List) packs several entries into one RecordBatch record, compressed as a whole, which
+ * needs the envelope so consumers can tell batches from single entry records.
+ *
+ * The codec can be picked per table, like the ZstdDictionaryCodec of the table's dictionary,
+ * the envelope names the codec of each record.
+ *
+ * With AdaptiveCompression the record is encoded uncompressed first, and only compressed if
+ * it's large enough and its table compresses well. Records that aren't compressed name no
+ * compression in their envelope.
+ */
+public class WALEntrySerializer {
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	private final WALEntryEncoder encoder;
+	private final Function<TableName, CompressionCodec> codecs;
+	private final ByteArrayPool pool;
+	private final RecordFormat envelopeFormat;
+	private final AdaptiveCompression adaptive;
+
+	public WALEntrySerializer(ObjectMapper objectMapper, boolean compressionEnabled) {
+		this(objectMapper, compressionEnabled, new ByteArrayPool(ConfigurationUtil.DEFAULT_BUFFER_POOL_SIZE));
+	}
+
+	public WALEntrySerializer(ObjectMapper objectMapper, boolean compressionEnabled, ByteArrayPool pool) {
+		this(new WALEntryJsonEncoder(objectMapper), compressionEnabled, pool);
+	}
+
+	public WALEntrySerializer(WALEntryEncoder encoder, boolean compressionEnabled, ByteArrayPool pool) {
+		this(encoder, compressionEnabled ? CompressionCodecs.GZIP : CompressionCodecs.NONE, pool, null);
+	}
+
+	/**
+	 * @param encoder
+	 * @param codec compression of the records, CompressionCodecs.NONE for none.
+	 * @param pool
+	 * @param envelopeFormat format named in the record envelope, null to write records without envelope.
+	 */
+	public WALEntrySerializer(WALEntryEncoder encoder, final CompressionCodec codec, ByteArrayPool pool,
+			RecordFormat envelopeFormat) {
+		this(encoder, tableName -> codec, pool, envelopeFormat);
+	}
+
+	/**
+	 * @param encoder
+	 * @param codecs compression of the records of each table, called for every record.
+	 * @param pool
+	 * @param envelopeFormat format named in the record envelope, null to write records without envelope.
+	 */
+	public WALEntrySerializer(WALEntryEncoder encoder, Function<TableName, CompressionCodec> codecs,
+			ByteArrayPool pool, RecordFormat envelopeFormat) {
+		this(encoder, codecs, pool, envelopeFormat, null);
+	}
+
+	/**
+	 * @param encoder
+	 * @param codecs compression of the records of each table, called for every record.
+	 * @param pool
+	 * @param envelopeFormat format named in the record envelope, null to write records without envelope.
+	 * @param adaptive decides which records are compressed, null to compress all of them.
+	 * @throws IllegalArgumentException if there's adaptive compression without envelope.
+	 */
+	public WALEntrySerializer(WALEntryEncoder encoder, Function<TableName, CompressionCodec> codecs,
+			ByteArrayPool pool, RecordFormat envelopeFormat, AdaptiveCompression adaptive) {
+		if (adaptive != null && envelopeFormat == null) {
+			throw new IllegalArgumentException("Adaptive compression needs the record envelope");
+		}
+		this.encoder = encoder;
+		this.codecs = codecs;
+		this.pool = pool;
+		this.envelopeFormat = envelopeFormat;
+		this.adaptive = adaptive;
+	}
+
+	/**
+	 * Serialize the entry, compressed with the codec.
+	 * @param entry WAL entry to serialize
+	 * @return the payload for the data sink, backed by a pooled array.
+	 * @throws IOException
+	 */
+	public ByteBuffer serialize(Entry entry) throws IOException {
+		TableName tableName = entry.getKey().getTableName();
+		CompressionCodec codec = codecs.apply(tableName);
+		if (adaptive != null && codec != CompressionCodecs.NONE) {
+			PooledByteArrayOutputStream body = new PooledByteArrayOutputStream(pool);
+			try {
+				encoder.encode(entry, body);
+				return writeAdaptive(tableName, codec, false, body);
+			} finally {
+				release(body.toByteBuffer());
+			}
+		}
+		PooledByteArrayOutputStream byteStream = new PooledByteArrayOutputStream(pool);
+		if (envelopeFormat != null) {
+			new RecordEnvelope(envelopeFormat, codec.getId()).writeHeader(byteStream);
+		}
+		try {
+			// Closes the stream when done, which finishes the compressed stream.
+			encoder.encode(entry, compress(codec, byteStream));
+		} catch (IOException | RuntimeException e) {
+			release(byteStream.toByteBuffer());
+			throw e;
+		}
+		return byteStream.toByteBuffer();
+	}
+
+	/**
+	 * Serialize the entries into one batch record, see RecordBatch. The entries are encoded one
+	 * by one into a scratch array and the whole batch is compressed with the codec.
+	 * @param entries WAL entries of one table, in the order consumers get them, compressed with the
+	 *            codec of the table of the first entry
+	 * @return the payload for the data sink, backed by a pooled array.
+	 * @throws IOException
+	 * @throws IllegalStateException if the serializer writes records without envelope.
+	 */
+	public ByteBuffer serialize(List<Entry> entries) throws IOException {
+		if (envelopeFormat == null) {
+			throw new IllegalStateException("Batch records need the record envelope");
+		}
+		TableName tableName = entries.get(0).getKey().getTableName();
+		CompressionCodec codec = codecs.apply(tableName);
+		if (adaptive != null && codec != CompressionCodecs.NONE) {
+			PooledByteArrayOutputStream body = new PooledByteArrayOutputStream(pool);
+			try {
+				writeBatch(entries, body);
+				return writeAdaptive(tableName, codec, true, body);
+			} finally {
+				release(body.toByteBuffer());
+			}
+		}
+		PooledByteArrayOutputStream byteStream = new PooledByteArrayOutputStream(pool);
+		try {
+			new RecordEnvelope(envelopeFormat, codec.getId(), true).writeHeader(byteStream);
+			writeBatch(entries, compress(codec, byteStream));
+		} catch (IOException | RuntimeException e) {
+			release(byteStream.toByteBuffer());
+			throw e;
+		}
+		return byteStream.toByteBuffer();
+	}
+
+	// Writes the RecordBatch of the entries and closes out.
+	private void writeBatch(List<Entry> entries, OutputStream out) throws IOException {
+		PooledByteArrayOutputStream scratch = new PooledByteArrayOutputStream(pool);
+		try (DataOutputStream data = new DataOutputStream(out)) {
+			WALEntryBinaryFormat.writeVarInt(data, entries.size());
+			for (int i = 0; i < entries.size(); i++) {
+				scratch.reset();
+				encoder.encode(entries.get(i), scratch);
+				WALEntryBinaryFormat.writeVarInt(data, scratch.size());
+				scratch.writeTo(data);
+			}
+		} finally {
+			release(scratch.toByteBuffer());
+		}
+	}
+
+	// Writes the envelope and the uncompressed body, compressed if adaptive says so.
+	private ByteBuffer writeAdaptive(TableName tableName, CompressionCodec codec, boolean batch,
+			PooledByteArrayOutputStream body) throws IOException {
+		int size = body.size();
+		boolean compress = adaptive.shouldCompress(tableName, size);
+		PooledByteArrayOutputStream byteStream = new PooledByteArrayOutputStream(pool);
+		try {
+			new RecordEnvelope(envelopeFormat, compress ? codec.getId() : CompressionCodecs.NONE_ID, batch)
+					.writeHeader(byteStream);
+			if (compress) {
+				try (OutputStream out = compress(codec, byteStream)) {
+					body.writeTo(out);
+				}
+				adaptive.record(tableName, size, byteStream.size() - RecordEnvelope.HEADER_SIZE);
+			} else {
+				body.writeTo(byteStream);
+			}
+		} catch (IOException | RuntimeException e) {
+			release(byteStream.toByteBuffer());
+			throw e;
+		}
+		return byteStream.toByteBuffer();
+	}
+
+	private static OutputStream compress(CompressionCodec codec, OutputStream byteStream) throws IOException {
+		if (codec == CompressionCodecs.NONE) {
+			return byteStream;
+		}
+		if (codec.isBuffered()) {
+			return codec.compress(byteStream);
+		}
+		// Encoders may write a few bytes at a time, don't hand each of them to the compressor.
+		return new BufferedOutputStream(codec.compress(byteStream), BUFFER_SIZE);
+	}
+
+	/**
+	 * Give the array behind a payload returned by serialize() back to the pool. The payload must
+	 * not be used afterwards.
+	 * @param payload
+	 */
+	public void release(ByteBuffer payload) {
+		if (payload != null && payload.hasArray()) {
+			pool.release(payload.array());
+		}
+	}
+
+	public ByteArrayPool getPool() {
+		return pool;
+	}
+}
@@ -0,0 +1,248 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.hadoop.hbase.util.Threads;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.hbase.serde.CompressionCodec;
+import com.amazonaws.hbase.serde.WALEntryEncoder;
+import com.amazonaws.hbase.serde.ZstdDictionary;
+import com.amazonaws.hbase.serde.ZstdDictionaryCodec;
+import com.amazonaws.hbase.serde.ZstdDictionaryStore;
+import com.github.luben.zstd.ZstdDictTrainer;
+
+/**
+ * Trains a zstd dictionary for each table from its own records and hands out the codec the
+ * table's records are compressed with. A table starts out with plain zstd while the encoder
+ * returned by samplingEncoder() collects its first sampleBytes of uncompressed records. The
+ * dictionary is then trained, published to the ZstdDictionaryStore, and only used once the
+ * consumers can load it. Dictionaries older than maxAgeMs are retrained the same way, the old
+ * one stays in use until the new one is published. Tables that never write sampleBytes of
+ * records keep plain zstd. Thread safe.
+ *
+ * Training and publishing run on a background thread, they can take seconds and a write to a
+ * remote file system. The threads serializing records only add their samples to the table's list,
+ * and keep compressing with the table's current codec until the new dictionary is published.
+ * The samples are kept on the heap, the zstd trainer and its direct buffer only exist while the
+ * background thread trains, so tables that write little don't each hold sampleBytes of direct
+ * memory.
+ */
+public class ZstdDictionaryManager {
+	private static final Logger LOG = LoggerFactory.getLogger(ZstdDictionaryManager.class);
+
+	private final ZstdDictionaryStore store;
+	private final CompressionCodec fallback;
+	private final int dictionarySize;
+	private final int sampleBytes;
+	private final long maxAgeMs;
+	private final int level;
+	private final Executor executor;
+	private final ExecutorService ownExecutor;
+	private final ConcurrentMap<TableName, TableDictionary> tables = new ConcurrentHashMap<TableName, TableDictionary>();
+
+	private static class TableDictionary {
+		volatile CompressionCodec codec;
+		// Samples collected for the next dictionary, null while the table isn't sampled.
+		volatile List<byte[]> samples;
+		int sampledBytes;
+		volatile long trainedAt;
+
+		TableDictionary(CompressionCodec codec) {
+			this.codec = codec;
+		}
+	}
+
+	/**
+	 * @param store where dictionaries are published
+	 * @param fallback codec of the tables that don't have a dictionary yet, plain zstd
+	 * @param dictionarySize maximum dictionary size in bytes
+	 * @param sampleBytes bytes of records sampled to train a dictionary
+	 * @param maxAgeMs age after which a table's dictionary is retrained
+	 * @param level zstd compression level, CompressionCodecs.DEFAULT_LEVEL for the default
+	 */
+	public ZstdDictionaryManager(ZstdDictionaryStore store, CompressionCodec fallback, int dictionarySize,
+			int sampleBytes, long maxAgeMs, int level) {
+		this(store, fallback, dictionarySize, sampleBytes, maxAgeMs, level, null);
+	}
+
+	/**
+	 * @param store where dictionaries are published
+	 * @param fallback codec of the tables that don't have a dictionary yet, plain zstd
+	 * @param dictionarySize maximum dictionary size in bytes
+	 * @param sampleBytes bytes of records sampled to train a dictionary
+	 * @param maxAgeMs age after which a table's dictionary is retrained
+	 * @param level zstd compression level, CompressionCodecs.DEFAULT_LEVEL for the default
+	 * @param executor runs the training and publishing, null for a thread of the manager's own.
+	 */
+	public ZstdDictionaryManager(ZstdDictionaryStore store, CompressionCodec fallback, int dictionarySize,
+			int sampleBytes, long maxAgeMs, int level, Executor executor) {
+		this.store = store;
+		this.fallback = fallback;
+		this.dictionarySize = dictionarySize;
+		this.sampleBytes = sampleBytes;
+		this.maxAgeMs = maxAgeMs;
+		this.level = level;
+		if (executor == null) {
+			this.ownExecutor = Executors.newSingleThreadExecutor(
+					Threads.newDaemonThreadFactory("ZstdDictionaryManager-trainer"));
+			this.executor = ownExecutor;
+		} else {
+			this.ownExecutor = null;
+			this.executor = executor;
+		}
+	}
+
+	/**
+	 * Stop the manager's own training thread, a dictionary being trained is not published.
+	 */
+	public void shutdown() {
+		if (ownExecutor != null) {
+			ownExecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * The codec a table's records are compressed with, called for every record.
+	 * @param tableName
+	 * @return the table's ZstdDictionaryCodec, or the fallback codec while there's none yet.
+	 */
+	public CompressionCodec getCodec(TableName tableName) {
+		TableDictionary table = getTable(tableName);
+		if (table.samples == null && EnvironmentEdgeManager.currentTime() - table.trainedAt > maxAgeMs) {
+			synchronized (table) {
+				if (table.samples == null) {
+					table.samples = new ArrayList<byte[]>();
+				}
+			}
+		}
+		return table.codec;
+	}
+
+	/**
+	 * Wraps the encoder so the records of the tables that need a dictionary are sampled while
+	 * they're written.
+	 * @param encoder
+	 * @return
+	 */
+	public WALEntryEncoder samplingEncoder(final WALEntryEncoder encoder) {
+		return new WALEntryEncoder() {
+			@Override
+			public void encode(Entry entry, OutputStream out) throws IOException {
+				TableDictionary table = getTable(entry.getKey().getTableName());
+				if (table.samples == null) {
+					encoder.encode(entry, out);
+					return;
+				}
+				ByteArrayOutputStream sample = new ByteArrayOutputStream();
+				encoder.encode(entry, new TeeOutputStream(out, sample));
+				addSample(entry.getKey().getTableName(), table, sample.toByteArray());
+			}
+		};
+	}
+
+	private TableDictionary getTable(TableName tableName) {
+		TableDictionary table = tables.get(tableName);
+		if (table == null) {
+			TableDictionary created = new TableDictionary(fallback);
+			created.samples = new ArrayList<byte[]>();
+			table = tables.putIfAbsent(tableName, created);
+			if (table == null) {
+				table = created;
+			}
+		}
+		return table;
+	}
+
+	private void addSample(final TableName tableName, final TableDictionary table, byte[] sample) {
+		final List<byte[]> samples;
+		final int sampledBytes;
+		synchronized (table) {
+			samples = table.samples;
+			// Large records make poor samples and would fill the buffer on their own.
+			if (samples == null || sample.length > sampleBytes / 16) {
+				return;
+			}
+			if (table.sampledBytes + sample.length <= sampleBytes) {
+				samples.add(sample);
+				table.sampledBytes += sample.length;
+				return;
+			}
+			// The buffer is full.
+			sampledBytes = table.sampledBytes;
+			table.samples = null;
+			table.sampledBytes = 0;
+			table.trainedAt = EnvironmentEdgeManager.currentTime();
+		}
+		try {
+			executor.execute(() -> train(tableName, table, samples, sampledBytes));
+		} catch (RejectedExecutionException e) {
+			LOG.warn("Not training zstd dictionary for table {}, the manager is shut down", tableName);
+		}
+	}
+
+	private void train(TableName tableName, TableDictionary table, List<byte[]> samples, int sampledBytes) {
+		try {
+			ZstdDictTrainer trainer = new ZstdDictTrainer(sampledBytes, dictionarySize);
+			for (byte[] sample : samples) {
+				trainer.addSample(sample);
+			}
+			ZstdDictionary dictionary = ZstdDictionary.train(trainer, level);
+			store.publish(dictionary);
+			table.codec = new ZstdDictionaryCodec(dictionary, store);
+			LOG.info("Compressing records of table {} with zstd dictionary {}", tableName, dictionary);
+		} catch (IOException | RuntimeException e) {
+			// Keep the codec we have, try again after maxAgeMs.
+			LOG.warn("Unable to create zstd dictionary for table " + tableName + " in " + store.getDir(), e);
+		}
+	}
+
+	private static class TeeOutputStream extends OutputStream {
+		private final OutputStream out;
+		private final OutputStream copy;
+
+		TeeOutputStream(OutputStream out, OutputStream copy) {
+			this.out = out;
+			this.copy = copy;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			copy.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			copy.write(b, off, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+}
@@ -8,11 +8,11 @@ import com.fasterxml.jackson.annotation.JsonGetter;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 import java.io.Serializable;
-import java.util.Arrays;
 
 import org.apache.hadoop.hbase.Cell;
 
 
+import com.amazonaws.hbase.CellUtil;
 import com.amazonaws.hbase.serde.HBaseCellDeserializer;
 
 
@@ -37,10 +37,12 @@ public class HBaseCell implements Serializable {
 		
 		assert cell !=null;
 		
-		setQualifier(extractBytes(cell.getQualifierArray(),cell.getQualifierOffset(),cell.getQualifierLength()));
-		setValue(extractBytes(cell.getValueArray(),cell.getValueOffset(),cell.getValueLength()));
-		setFamily(extractBytes(cell.getFamilyArray(),cell.getFamilyOffset(),cell.getFamilyLength()));
-		setRow(extractBytes(cell.getRowArray(),cell.getRowOffset(),cell.getRowLength()));
+		// CellUtil copies from the cell's ByteBuffers for off-heap cells, instead of having the
+		// cell materialize an on-heap copy of its whole backing buffer first.
+		setQualifier(CellUtil.cloneQualifier(cell));
+		setValue(CellUtil.cloneValue(cell));
+		setFamily(CellUtil.cloneFamily(cell));
+		setRow(CellUtil.cloneRow(cell));
 	
 		setTimeStamp(cell.getTimestamp());
 		setType(cell.getType().toString());
@@ -101,9 +103,4 @@ public class HBaseCell implements Serializable {
 	public void setRow(byte[] row) {
 		this.row = row;
 	}
-	
-	private byte[] extractBytes(byte[] arr, int offset, int length) {
-		byte[] res = Arrays.copyOfRange(arr,offset,offset+length);
-		return res;
-	}
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compression applied to the records, selected with hbase.replication.compression-codec on the
+ * region servers. Built-in codecs are listed in CompressionCodecs, other implementations are
+ * configured by class name and need a public no-arg constructor. Implementations are thread safe.
+ */
+public interface CompressionCodec {
+
+	/**
+	 * Id of the codec in the record envelope. Built-in codecs use 0 to 63, other codecs should
+	 * pick an id above that.
+	 * @return
+	 */
+	byte getId();
+
+	/**
+	 * @return the configuration name of the codec.
+	 */
+	String getName();
+
+	/**
+	 * Wraps a stream to compress what's written to it. Closing the returned stream finishes the
+	 * compressed data and closes out.
+	 * @param out
+	 * @return
+	 * @throws IOException
+	 */
+	OutputStream compress(OutputStream out) throws IOException;
+
+	/**
+	 * Does the stream returned by compress() collect small writes itself. Otherwise the
+	 * serializer puts a buffer in front of it.
+	 * @return
+	 */
+	default boolean isBuffered() {
+		return false;
+	}
+
+	/**
+	 * Wraps a stream of data compressed by this codec.
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	InputStream decompress(InputStream in) throws IOException;
+}
@@ -0,0 +1,505 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import org.xerial.snappy.PureJavaCrc32C;
+import org.xerial.snappy.Snappy;
+import org.xerial.snappy.SnappyFramedInputStream;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdInputStream;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.xxhash.XXHashFactory;
+
+/**
+ * The built-in compression codecs. All of them write their library's standard stream format: gzip,
+ * zstd frames, LZ4 frames and the Snappy framing format, so records can be decompressed with
+ * the usual command line tools as well.
+ *
+ * Compression reuses the compressor contexts and buffers of each codec instance, see
+ * PooledCompressor, decompression uses the libraries' input streams.
+ */
+public final class CompressionCodecs {
+	public static final byte NONE_ID = 0;
+	public static final byte GZIP_ID = 1;
+	public static final byte ZSTD_ID = 2;
+	public static final byte LZ4_ID = 3;
+	public static final byte SNAPPY_ID = 4;
+	/** zstd with a per table dictionary, see ZstdDictionaryCodec. Not returned by forId(). */
+	public static final byte ZSTD_DICTIONARY_ID = 5;
+
+	/** Default level of codecs that take one, the library's own default is used. */
+	public static final int DEFAULT_LEVEL = Integer.MIN_VALUE;
+
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	/** No compression, the record is written as is. */
+	public static final CompressionCodec NONE = new CompressionCodec() {
+		@Override
+		public byte getId() {
+			return NONE_ID;
+		}
+
+		@Override
+		public String getName() {
+			return "none";
+		}
+
+		@Override
+		public OutputStream compress(OutputStream out) {
+			return out;
+		}
+
+		@Override
+		public InputStream decompress(InputStream in) {
+			return in;
+		}
+	};
+
+	public static final CompressionCodec GZIP = new GzipCodec(DEFAULT_LEVEL);
+	public static final CompressionCodec ZSTD = new ZstdCodec(DEFAULT_LEVEL);
+	public static final CompressionCodec LZ4 = new Lz4Codec();
+	public static final CompressionCodec SNAPPY = new SnappyCodec();
+
+	private CompressionCodecs() {
+	}
+
+	/**
+	 * Looks up a codec by configuration name or class name.
+	 * @param name none, gzip, zstd, lz4, snappy or the class name of a CompressionCodec.
+	 * @param level compression level for gzip (1-9) and zstd (1-22), DEFAULT_LEVEL for the default.
+	 * @return
+	 * @throws IllegalArgumentException if there is no such codec.
+	 */
+	public static CompressionCodec forName(String name, int level) {
+		switch (name.trim().toLowerCase(Locale.ROOT)) {
+		case "none":
+			return NONE;
+		case "gzip":
+			return level == DEFAULT_LEVEL ? GZIP : new GzipCodec(level);
+		case "zstd":
+			return level == DEFAULT_LEVEL ? ZSTD : new ZstdCodec(level);
+		case "lz4":
+			return LZ4;
+		case "snappy":
+			return SNAPPY;
+		default:
+			return newInstance(name.trim());
+		}
+	}
+
+	/**
+	 * Looks up a built-in codec by envelope id.
+	 * @param id
+	 * @return the codec, null if it isn't a built-in one.
+	 */
+	public static CompressionCodec forId(byte id) {
+		switch (id) {
+		case NONE_ID:
+			return NONE;
+		case GZIP_ID:
+			return GZIP;
+		case ZSTD_ID:
+			return ZSTD;
+		case LZ4_ID:
+			return LZ4;
+		case SNAPPY_ID:
+			return SNAPPY;
+		default:
+			return null;
+		}
+	}
+
+	private static CompressionCodec newInstance(String className) {
+		try {
+			return Class.forName(className).asSubclass(CompressionCodec.class).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			throw new IllegalArgumentException("Unknown compression codec " + className, e);
+		}
+	}
+
+	static final class GzipCodec implements CompressionCodec {
+		private final PooledCompressor.Pool compressors;
+
+		GzipCodec(final int level) {
+			this.compressors = new PooledCompressor.Pool(PooledCompressor.Pool.DEFAULT_SIZE,
+					pool -> new GzipCompressor(pool, level));
+		}
+
+		@Override
+		public byte getId() {
+			return GZIP_ID;
+		}
+
+		@Override
+		public String getName() {
+			return "gzip";
+		}
+
+		@Override
+		public OutputStream compress(OutputStream out) throws IOException {
+			return compressors.compress(out);
+		}
+
+		@Override
+		public boolean isBuffered() {
+			return true;
+		}
+
+		@Override
+		public InputStream decompress(InputStream in) throws IOException {
+			return new GZIPInputStream(in, BUFFER_SIZE);
+		}
+	}
+
+	static final class ZstdCodec implements CompressionCodec {
+		private final PooledCompressor.Pool compressors;
+
+		ZstdCodec(final int level) {
+			this.compressors = new PooledCompressor.Pool(PooledCompressor.Pool.DEFAULT_SIZE,
+					pool -> new ZstdCompressor(pool, level, null));
+		}
+
+		@Override
+		public byte getId() {
+			return ZSTD_ID;
+		}
+
+		@Override
+		public String getName() {
+			return "zstd";
+		}
+
+		@Override
+		public OutputStream compress(OutputStream out) throws IOException {
+			return compressors.compress(out);
+		}
+
+		@Override
+		public boolean isBuffered() {
+			return true;
+		}
+
+		@Override
+		public InputStream decompress(InputStream in) throws IOException {
+			return new ZstdInputStream(in);
+		}
+	}
+
+	static final class Lz4Codec implements CompressionCodec {
+		private final PooledCompressor.Pool compressors = new PooledCompressor.Pool(PooledCompressor.Pool.DEFAULT_SIZE,
+				Lz4FrameCompressor::new);
+
+		@Override
+		public byte getId() {
+			return LZ4_ID;
+		}
+
+		@Override
+		public String getName() {
+			return "lz4";
+		}
+
+		@Override
+		public OutputStream compress(OutputStream out) throws IOException {
+			return compressors.compress(out);
+		}
+
+		@Override
+		public boolean isBuffered() {
+			return true;
+		}
+
+		@Override
+		public InputStream decompress(InputStream in) throws IOException {
+			return new LZ4FrameInputStream(in);
+		}
+	}
+
+	static final class SnappyCodec implements CompressionCodec {
+		private final PooledCompressor.Pool compressors = new PooledCompressor.Pool(PooledCompressor.Pool.DEFAULT_SIZE,
+				SnappyFramedCompressor::new);
+
+		@Override
+		public byte getId() {
+			return SNAPPY_ID;
+		}
+
+		@Override
+		public String getName() {
+			return "snappy";
+		}
+
+		@Override
+		public OutputStream compress(OutputStream out) throws IOException {
+			return compressors.compress(out);
+		}
+
+		@Override
+		public boolean isBuffered() {
+			return true;
+		}
+
+		@Override
+		public InputStream decompress(InputStream in) throws IOException {
+			return new SnappyFramedInputStream(in);
+		}
+	}
+
+	/**
+	 * Writes the gzip format of GZIPOutputStream, with a Deflater that's reset for each record.
+	 */
+	static final class GzipCompressor extends PooledCompressor {
+		// Magic, deflate, no flags, no modification time, no extra flags, OS 0.
+		private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+		private final Deflater deflater;
+		private final CRC32 crc = new CRC32();
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+
+		GzipCompressor(Pool pool, int level) {
+			super(pool, BUFFER_SIZE, BUFFER_SIZE);
+			this.deflater = new Deflater(level == DEFAULT_LEVEL ? Deflater.DEFAULT_COMPRESSION : level, true);
+		}
+
+		@Override
+		void writeHeader() throws IOException {
+			out.write(HEADER);
+		}
+
+		@Override
+		void writeBlock(byte[] b, int off, int len) throws IOException {
+			crc.update(b, off, len);
+			deflater.setInput(b, off, len);
+			while (!deflater.needsInput()) {
+				deflate();
+			}
+		}
+
+		@Override
+		void finish() throws IOException {
+			deflater.finish();
+			while (!deflater.finished()) {
+				deflate();
+			}
+			writeIntLE(out, (int) crc.getValue());
+			writeIntLE(out, (int) deflater.getBytesRead());
+		}
+
+		private void deflate() throws IOException {
+			int n = deflater.deflate(buffer, 0, buffer.length);
+			if (n > 0) {
+				out.write(buffer, 0, n);
+			}
+		}
+
+		@Override
+		void reset() {
+			deflater.reset();
+			crc.reset();
+		}
+
+		@Override
+		void destroy() {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Writes the record as a single zstd frame, compressed in one call with a reused context.
+	 */
+	static final class ZstdCompressor extends PooledCompressor {
+		private static final byte[] EMPTY = new byte[0];
+
+		private final ZstdCompressCtx ctx = new ZstdCompressCtx();
+		private byte[] compressed;
+		private boolean written;
+
+		/**
+		 * @param pool
+		 * @param level
+		 * @param dictionary dictionary to compress with, its level applies, or null.
+		 */
+		ZstdCompressor(Pool pool, int level, ZstdDictCompress dictionary) {
+			super(pool, 4 * 1024, Integer.MAX_VALUE);
+			if (level != DEFAULT_LEVEL) {
+				ctx.setLevel(level);
+			}
+			if (dictionary != null) {
+				ctx.loadDict(dictionary);
+			}
+		}
+
+		@Override
+		void writeHeader() {
+		}
+
+		@Override
+		void writeBlock(byte[] b, int off, int len) throws IOException {
+			compressed = ensureCapacity(compressed, (int) Zstd.compressBound(len));
+			int n = ctx.compressByteArray(compressed, 0, compressed.length, b, off, len);
+			out.write(compressed, 0, n);
+			written = true;
+		}
+
+		@Override
+		void finish() throws IOException {
+			// An empty record is still a frame.
+			if (!written) {
+				writeBlock(EMPTY, 0, 0);
+			}
+		}
+
+		@Override
+		void reset() {
+			compressed = retain(compressed);
+			written = false;
+		}
+
+		@Override
+		void destroy() {
+			ctx.close();
+		}
+	}
+
+	/**
+	 * Writes the LZ4 frame format of LZ4FrameOutputStream with 64KB independent blocks, reusing
+	 * the block buffers.
+	 */
+	static final class Lz4FrameCompressor extends PooledCompressor {
+		private static final int BLOCK_SIZE = 64 * 1024;
+		private static final int MAGIC = 0x184D2204;
+		// Version 01, independent blocks, no checksums.
+		private static final byte FLG = 0x60;
+		// 64KB maximum block size.
+		private static final byte BD = 0x40;
+		private static final int UNCOMPRESSED_BLOCK = 0x80000000;
+		private static final byte[] HEADER = new byte[7];
+		static {
+			HEADER[0] = (byte) MAGIC;
+			HEADER[1] = (byte) (MAGIC >>> 8);
+			HEADER[2] = (byte) (MAGIC >>> 16);
+			HEADER[3] = (byte) (MAGIC >>> 24);
+			HEADER[4] = FLG;
+			HEADER[5] = BD;
+			HEADER[6] = (byte) (XXHashFactory.fastestInstance().hash32().hash(HEADER, 4, 2, 0) >>> 8);
+		}
+
+		private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+		private byte[] compressed;
+
+		Lz4FrameCompressor(Pool pool) {
+			super(pool, 4 * 1024, BLOCK_SIZE);
+		}
+
+		@Override
+		void writeHeader() throws IOException {
+			out.write(HEADER);
+		}
+
+		@Override
+		void writeBlock(byte[] b, int off, int len) throws IOException {
+			compressed = ensureCapacity(compressed, compressor.maxCompressedLength(len));
+			int n = compressor.compress(b, off, len, compressed, 0, compressed.length);
+			if (n >= len) {
+				writeIntLE(out, len | UNCOMPRESSED_BLOCK);
+				out.write(b, off, len);
+			} else {
+				writeIntLE(out, n);
+				out.write(compressed, 0, n);
+			}
+		}
+
+		@Override
+		void finish() throws IOException {
+			// End mark
+			writeIntLE(out, 0);
+		}
+
+		@Override
+		void reset() {
+		}
+
+		@Override
+		void destroy() {
+		}
+	}
+
+	/**
+	 * Writes the Snappy framing format of SnappyFramedOutputStream with 64KB chunks, reusing the
+	 * chunk buffers.
+	 */
+	static final class SnappyFramedCompressor extends PooledCompressor {
+		private static final int BLOCK_SIZE = 64 * 1024;
+		// Stream identifier chunk.
+		private static final byte[] HEADER = { (byte) 0xff, 0x06, 0x00, 0x00, 's', 'N', 'a', 'P', 'p', 'Y' };
+		private static final int COMPRESSED_CHUNK = 0x00;
+		private static final int UNCOMPRESSED_CHUNK = 0x01;
+		// Chunks that don't compress below this ratio are written uncompressed.
+		private static final double MIN_COMPRESSION_RATIO = 0.85;
+		private static final int CRC_MASK_DELTA = 0xa282ead8;
+
+		private final PureJavaCrc32C crc = new PureJavaCrc32C();
+		private byte[] compressed;
+
+		SnappyFramedCompressor(Pool pool) {
+			super(pool, 4 * 1024, BLOCK_SIZE);
+		}
+
+		@Override
+		void writeHeader() throws IOException {
+			out.write(HEADER);
+		}
+
+		@Override
+		void writeBlock(byte[] b, int off, int len) throws IOException {
+			crc.reset();
+			crc.update(b, off, len);
+			int checksum = crc.getIntegerValue();
+			checksum = ((checksum >>> 15) | (checksum << 17)) + CRC_MASK_DELTA;
+			compressed = ensureCapacity(compressed, Snappy.maxCompressedLength(len));
+			int n = Snappy.compress(b, off, len, compressed, 0);
+			if (n < len * MIN_COMPRESSION_RATIO) {
+				writeChunk(COMPRESSED_CHUNK, checksum, compressed, 0, n);
+			} else {
+				writeChunk(UNCOMPRESSED_CHUNK, checksum, b, off, len);
+			}
+		}
+
+		private void writeChunk(int type, int checksum, byte[] b, int off, int len) throws IOException {
+			int length = len + 4;
+			out.write(type);
+			out.write(length);
+			out.write(length >>> 8);
+			out.write(length >>> 16);
+			writeIntLE(out, checksum);
+			out.write(b, off, len);
+		}
+
+		@Override
+		void finish() {
+		}
+
+		@Override
+		void reset() {
+		}
+
+		@Override
+		void destroy() {
+		}
+	}
+}
@@ -5,18 +5,14 @@ package com.amazonaws.hbase.serde;
 
 import java.io.IOException;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import com.amazonaws.hbase.model.HBaseCell;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 
 public class HBaseCellDeserializer  extends StdDeserializer<HBaseCell>{
-	private static final Logger LOG = LoggerFactory.getLogger(HBaseCellDeserializer.class);
 	protected HBaseCellDeserializer(Class<?> vc) {
 		super(vc);
 	}
@@ -36,20 +32,32 @@ public class HBaseCellDeserializer  extends StdDeserializer<HBaseCell>{
 		
 		HBaseCell cell = new HBaseCell();
 		
-		final JsonNode jsonNode = p.getCodec().readTree(p);
-		byte[] qualifier = jsonNode.get("qualifier").binaryValue();
-		byte[] value = jsonNode.get("value").binaryValue();
-		byte[] family = jsonNode.get("family").binaryValue();
-		byte[] row = jsonNode.get("row").binaryValue();
-		String type = jsonNode.get("type").asText();
-		long timestamp = jsonNode.get("timeStamp").asLong();
-		
-		cell.setFamily(family);
-		cell.setQualifier(qualifier);
-		cell.setRow(row);
-		cell.setTimeStamp(timestamp);
-		cell.setType(type);
-		cell.setValue(value);
+		for (JsonToken t = JsonParserUtil.firstField(p); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+			String field = p.getCurrentName();
+			p.nextToken();
+			switch (field) {
+			case "qualifier":
+				cell.setQualifier(JsonParserUtil.binaryValue(p, ctxt));
+				break;
+			case "value":
+				cell.setValue(JsonParserUtil.binaryValue(p, ctxt));
+				break;
+			case "family":
+				cell.setFamily(JsonParserUtil.binaryValue(p, ctxt));
+				break;
+			case "row":
+				cell.setRow(JsonParserUtil.binaryValue(p, ctxt));
+				break;
+			case "type":
+				cell.setType(p.getValueAsString());
+				break;
+			case "timeStamp":
+				cell.setTimeStamp(p.getValueAsLong());
+				break;
+			default:
+				p.skipChildren();
+			}
+		}
 		
 		return cell;
 	}
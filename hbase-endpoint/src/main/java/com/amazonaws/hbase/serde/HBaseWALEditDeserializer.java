@@ -8,20 +8,18 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import com.amazonaws.hbase.model.HBaseWALEdit;
 import com.amazonaws.hbase.model.HBaseCell;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 
 
 public class HBaseWALEditDeserializer extends StdDeserializer<HBaseWALEdit> {
-	private static final Logger LOG = LoggerFactory.getLogger(HBaseWALEditDeserializer.class);
+	private static final HBaseCellDeserializer CELL_DESERIALIZER = new HBaseCellDeserializer();
+
 	protected HBaseWALEditDeserializer(Class<?> vc) {
 		super(vc);
 	}
@@ -38,37 +36,41 @@ public class HBaseWALEditDeserializer extends StdDeserializer<HBaseWALEdit> {
 	@Override
 	public HBaseWALEdit<HBaseWALEdit> deserialize(JsonParser p, DeserializationContext ctxt) throws IOException, JsonProcessingException {
 		ArrayList<HBaseCell> cells = new ArrayList<HBaseCell>();
-		Set<byte[]> families = new HashSet<byte[]>();
-		byte[] METAFAMILY;
-		boolean replay;
-		
-		JsonNode jsonNode = p.getCodec().readTree(p);
-		
-		final JsonNode cellsNode = jsonNode.get("cells");
-		if (cellsNode.isArray()) {
-		    for (final JsonNode objNode : cellsNode) {
-		    	        cells.add(p.getCodec().treeToValue(objNode, HBaseCell.class));
-		    }
-		}
+		// families and metafamily are left out by some projections, they stay null then.
+		Set<byte[]> families = null;
+		byte[] METAFAMILY = null;
+		boolean replay = false;
 		
-		
-		final JsonNode familiesNode = jsonNode.get("families");
-		if (familiesNode.isArray()) {
-			familiesNode.elements().forEachRemaining((JsonNode node) -> {
-				try {
-					families.add(node.binaryValue());
-				} catch (IOException e) {
-					LOG.warn("Unable to deserialize all the family names from array.",e);
-					e.printStackTrace();
+		for (JsonToken t = JsonParserUtil.firstField(p); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+			String field = p.getCurrentName();
+			t = p.nextToken();
+			switch (field) {
+			case "cells":
+				if (t == JsonToken.START_ARRAY) {
+					while (p.nextToken() != JsonToken.END_ARRAY) {
+						cells.add(CELL_DESERIALIZER.deserialize(p, ctxt));
+					}
 				}
-			});					
-
+				break;
+			case "families":
+				families = new HashSet<byte[]>();
+				if (t == JsonToken.START_ARRAY) {
+					while (p.nextToken() != JsonToken.END_ARRAY) {
+						families.add(JsonParserUtil.binaryValue(p, ctxt));
+					}
+				}
+				break;
+			case "metafamily":
+				METAFAMILY = JsonParserUtil.binaryValue(p, ctxt);
+				break;
+			case "replay":
+				replay = p.getValueAsBoolean();
+				break;
+			default:
+				p.skipChildren();
+			}
 		}
 		
-		METAFAMILY=jsonNode.get("metafamily").binaryValue();
-		
-		replay = jsonNode.get("replay").asBoolean();
-		
 		HBaseWALEdit<HBaseWALEdit> hBaseEdit = new HBaseWALEdit<HBaseWALEdit>();
 		hBaseEdit.setCells(cells);
 		hBaseEdit.setFamilies(families);
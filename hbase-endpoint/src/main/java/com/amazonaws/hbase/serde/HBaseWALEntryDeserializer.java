@@ -5,17 +5,16 @@ package com.amazonaws.hbase.serde;
 
 import java.io.IOException;
 
-import com.amazonaws.hbase.model.HBaseCell;
-import com.amazonaws.hbase.model.HBaseWALEdit;
 import com.amazonaws.hbase.model.HBaseWALEntry;
-import com.amazonaws.hbase.model.HBaseWALKey;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 
 public class HBaseWALEntryDeserializer extends StdDeserializer<HBaseWALEntry> {
+	private static final HBaseWALKeyDeserializer KEY_DESERIALIZER = new HBaseWALKeyDeserializer();
+	private static final HBaseWALEditDeserializer EDIT_DESERIALIZER = new HBaseWALEditDeserializer();
 
 	protected HBaseWALEntryDeserializer(Class<?> vc) {
 		super(vc);
@@ -30,25 +29,33 @@ public class HBaseWALEntryDeserializer extends StdDeserializer<HBaseWALEntry> {
 	 */
 	private static final long serialVersionUID = -299530848693054619L;
 
+	/**
+	 * Reads the entry in one pass over the tokens, key and edit are handed to their deserializers
+	 * directly rather than looked up through the mapper.
+	 */
 	@Override
 	public HBaseWALEntry deserialize(JsonParser p, DeserializationContext ctxt)
 			throws IOException, JsonProcessingException {
 		
 		HBaseWALEntry entry = new HBaseWALEntry();
 		
-		HBaseWALKey key = new HBaseWALKey();
-		HBaseWALEdit<HBaseCell> edit = new HBaseWALEdit<HBaseCell>(); 
-		
-		JsonNode jsonNode = p.getCodec().readTree(p);
-		
-		final JsonNode jkey = jsonNode.get("key");
-		key = p.getCodec().treeToValue(jkey, HBaseWALKey.class);
-        
-        final JsonNode jedit = jsonNode.get("edit");
-		edit = p.getCodec().treeToValue(jedit, HBaseWALEdit.class);
-		
-		entry.setWalEdit(edit);
-		entry.setWalKey(key);
+		for (JsonToken t = JsonParserUtil.firstField(p); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+			String field = p.getCurrentName();
+			t = p.nextToken();
+			if (t == JsonToken.VALUE_NULL) {
+				continue;
+			}
+			switch (field) {
+			case "key":
+				entry.setWalKey(KEY_DESERIALIZER.deserialize(p, ctxt));
+				break;
+			case "edit":
+				entry.setWalEdit(EDIT_DESERIALIZER.deserialize(p, ctxt));
+				break;
+			default:
+				p.skipChildren();
+			}
+		}
 		
 		return entry;
 	}
@@ -5,17 +5,12 @@ package com.amazonaws.hbase.serde;
 
 import java.io.IOException;
 
-import org.apache.hadoop.hbase.wal.WALKeyImpl;
-
-import com.amazonaws.hbase.model.HBaseWALEdit;
 import com.amazonaws.hbase.model.HBaseWALKey;
 import com.amazonaws.hbase.model.MVCCWALEntry;
-import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 
 public class HBaseWALKeyDeserializer extends StdDeserializer<HBaseWALKey>{
@@ -37,41 +32,59 @@ public class HBaseWALKeyDeserializer extends StdDeserializer<HBaseWALKey>{
 	public HBaseWALKey deserialize(JsonParser p, DeserializationContext ctxt)
 			throws IOException, JsonProcessingException {
 		
-		ObjectMapper objectMapper = new ObjectMapper();
-		
 		HBaseWALKey res = new HBaseWALKey();
 		
-		Long writeTime;
-		Long sequenceId;
-		String tablename;
-		Long nonce;
-		Long nonceGroup;
-		Long origLogSeqNum;
-		byte[] encodedRegionName;
-		MVCCWALEntry writeEntry;
-		
-		JsonNode jsonNode = p.getCodec().readTree(p);
-		
-		encodedRegionName = jsonNode.get("encodedRegionName").binaryValue();
-		nonce = jsonNode.get("nonce").asLong();
-		nonceGroup =jsonNode.get("nonceGroup").asLong();
-		writeTime = jsonNode.get("writeTime").asLong();
-		sequenceId = jsonNode.get("sequenceId").asLong();
-		tablename = jsonNode.get("tablename").asText();
-		writeEntry = objectMapper.readValue(jsonNode.get("writeEntry").asText(), MVCCWALEntry.class);
-		origLogSeqNum = jsonNode.get("origLogSeqNum").asLong();
-		
-		res.setEncodedRegionName(encodedRegionName);
-		res.setNonce(nonce);
-		res.setNonceGroup(nonceGroup);
-		res.setOrigLogSeqNum(origLogSeqNum);
-		res.setSequenceId(sequenceId);
-		res.setTableName(tablename);
-		res.setWriteEntry(writeEntry);
-		res.setWriteTime(writeTime);
+		// Only writeTime, sequenceId and tablename are always there, see WALEntryProjection.
+		for (JsonToken t = JsonParserUtil.firstField(p); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+			String field = p.getCurrentName();
+			t = p.nextToken();
+			switch (field) {
+			case "writeTime":
+				res.setWriteTime(JsonParserUtil.longValue(p));
+				break;
+			case "sequenceId":
+				res.setSequenceId(JsonParserUtil.longValue(p));
+				break;
+			case "tablename":
+				res.setTableName(p.getValueAsString());
+				break;
+			case "nonce":
+				res.setNonce(JsonParserUtil.longValue(p));
+				break;
+			case "nonceGroup":
+				res.setNonceGroup(JsonParserUtil.longValue(p));
+				break;
+			case "origLogSeqNum":
+				res.setOrigLogSeqNum(JsonParserUtil.longValue(p));
+				break;
+			case "encodedRegionName":
+				res.setEncodedRegionName(JsonParserUtil.binaryValue(p, ctxt));
+				break;
+			case "writeEntry":
+				if (t == JsonToken.START_OBJECT) {
+					res.setWriteEntry(readWriteEntry(p));
+				}
+				break;
+			default:
+				p.skipChildren();
+			}
+		}
 		
 		return res;
 	}
-	
+
+	private static MVCCWALEntry readWriteEntry(JsonParser p) throws IOException {
+		MVCCWALEntry writeEntry = new MVCCWALEntry();
+		for (JsonToken t = p.nextToken(); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+			String field = p.getCurrentName();
+			p.nextToken();
+			if (field.equals("writeNumber")) {
+				writeEntry.setWriteNumber(p.getValueAsLong());
+			} else {
+				p.skipChildren();
+			}
+		}
+		return writeEntry;
+	}
 
 }
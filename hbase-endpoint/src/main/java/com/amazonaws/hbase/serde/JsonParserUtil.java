@@ -0,0 +1,56 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+/**
+ * Token helpers shared by the HBase*Deserializer classes, which read the records field by field
+ * straight from the parser instead of going through a JsonNode tree.
+ */
+final class JsonParserUtil {
+
+	private JsonParserUtil() {
+	}
+
+	/**
+	 * Moves past the START_OBJECT the parser may still be on.
+	 * @param p
+	 * @return the first FIELD_NAME, or END_OBJECT for an empty object.
+	 * @throws IOException
+	 */
+	static JsonToken firstField(JsonParser p) throws IOException {
+		JsonToken t = p.currentToken();
+		if (t == JsonToken.START_OBJECT) {
+			t = p.nextToken();
+		}
+		return t;
+	}
+
+	/**
+	 * The binary value the parser is on: base64 text in json, raw binary in Smile and CBOR.
+	 * @return the bytes, null for a null value.
+	 */
+	static byte[] binaryValue(JsonParser p, DeserializationContext ctxt) throws IOException {
+		if (p.currentToken() == JsonToken.VALUE_NULL) {
+			return null;
+		}
+		return p.getBinaryValue(ctxt == null ? Base64Variants.getDefaultVariant() : ctxt.getBase64Variant());
+	}
+
+	/**
+	 * @return the long value the parser is on, null for a null value.
+	 */
+	static Long longValue(JsonParser p) throws IOException {
+		if (p.currentToken() == JsonToken.VALUE_NULL) {
+			return null;
+		}
+		return p.getValueAsLong();
+	}
+}
@@ -0,0 +1,205 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+
+/**
+ * Compressing stream that is reused across records. It holds the compressor context of a codec,
+ * like a Deflater or a zstd context, and its buffers. compress() of a built-in codec takes one
+ * from the codec's Pool and points it at the output, close() finishes the compressed data and
+ * gives it back, reset for the next record. Creating contexts per record would allocate native
+ * memory that's only freed once the garbage collector gets to the stream.
+ *
+ * Writes are collected in a block of up to blockSize bytes, which is handed to writeBlock() when
+ * full and on close(). flush() doesn't end the current block, so a flushing encoder doesn't cut
+ * the record into small blocks. A compressor that failed is destroyed instead of reused.
+ */
+abstract class PooledCompressor extends OutputStream {
+	/** Buffers larger than this, grown for a large record, aren't kept in the pool. */
+	static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+	private final Pool pool;
+	private final int initialSize;
+	private final int blockSize;
+	private byte[] block;
+	private int length;
+	protected OutputStream out;
+
+	/**
+	 * @param pool pool the compressor goes back to
+	 * @param initialSize initial size of the block buffer, grown up to blockSize
+	 * @param blockSize bytes handed to writeBlock() at a time, Integer.MAX_VALUE for the whole record.
+	 */
+	PooledCompressor(Pool pool, int initialSize, int blockSize) {
+		this.pool = pool;
+		this.initialSize = initialSize;
+		this.blockSize = blockSize;
+		this.block = new byte[initialSize];
+	}
+
+	/** Start of the compressed data, written to out before any block. */
+	abstract void writeHeader() throws IOException;
+
+	/** Compress the bytes to out. */
+	abstract void writeBlock(byte[] b, int off, int len) throws IOException;
+
+	/** End of the compressed data, written to out after the last block. */
+	abstract void finish() throws IOException;
+
+	/** Get ready for the next record, after a successful finish(). */
+	abstract void reset();
+
+	/** Free the context, the compressor isn't used anymore. */
+	abstract void destroy();
+
+	private OutputStream open(OutputStream out) throws IOException {
+		this.out = out;
+		this.length = 0;
+		writeHeader();
+		return this;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (length == block.length) {
+			makeRoom(1);
+		}
+		block[length++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (length == block.length) {
+				makeRoom(len);
+			}
+			int n = Math.min(len, block.length - length);
+			System.arraycopy(b, off, block, length, n);
+			length += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	private void makeRoom(int needed) throws IOException {
+		if (block.length < blockSize) {
+			long size = Math.max(block.length * 2L, (long) length + needed);
+			byte[] grown = new byte[(int) Math.min(size, Math.min(blockSize, Integer.MAX_VALUE - 8))];
+			System.arraycopy(block, 0, grown, 0, length);
+			block = grown;
+			return;
+		}
+		writeBlock(block, 0, length);
+		length = 0;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (out == null) {
+			return;
+		}
+		boolean finished = false;
+		try {
+			if (length > 0) {
+				writeBlock(block, 0, length);
+				length = 0;
+			}
+			finish();
+			out.close();
+			finished = true;
+		} finally {
+			out = null;
+			if (finished) {
+				if (block.length > MAX_RETAINED_SIZE) {
+					block = new byte[initialSize];
+				}
+				reset();
+				pool.release(this);
+			} else {
+				destroy();
+			}
+		}
+	}
+
+	/**
+	 * @return buffer if it holds size bytes, a new one of at least size bytes otherwise.
+	 */
+	static byte[] ensureCapacity(byte[] buffer, int size) {
+		return buffer != null && buffer.length >= size ? buffer : new byte[size];
+	}
+
+	/**
+	 * @return buffer, or null if it's too large to keep in the pool.
+	 */
+	static byte[] retain(byte[] buffer) {
+		return buffer != null && buffer.length > MAX_RETAINED_SIZE ? null : buffer;
+	}
+
+	static void writeIntLE(OutputStream out, int value) throws IOException {
+		out.write(value);
+		out.write(value >>> 8);
+		out.write(value >>> 16);
+		out.write(value >>> 24);
+	}
+
+	/**
+	 * Bounded pool of the compressors of one codec. Compressors are created when the pool is
+	 * empty and destroyed when it's full, so it holds at most one per concurrently compressing
+	 * thread up to its size. Thread safe.
+	 */
+	static final class Pool {
+		static final int DEFAULT_SIZE = 16;
+
+		private final BlockingQueue<PooledCompressor> compressors;
+		private final Function<Pool, PooledCompressor> factory;
+
+		/**
+		 * @param size
+		 * @param factory creates a compressor releasing itself to the given pool.
+		 */
+		Pool(int size, Function<Pool, PooledCompressor> factory) {
+			this.compressors = new ArrayBlockingQueue<PooledCompressor>(size);
+			this.factory = factory;
+		}
+
+		/**
+		 * A compressor writing to out, see CompressionCodec.compress().
+		 * @param out
+		 * @return
+		 * @throws IOException
+		 */
+		OutputStream compress(OutputStream out) throws IOException {
+			PooledCompressor compressor = compressors.poll();
+			if (compressor == null) {
+				compressor = factory.apply(this);
+			}
+			try {
+				return compressor.open(out);
+			} catch (IOException | RuntimeException e) {
+				compressor.destroy();
+				throw e;
+			}
+		}
+
+		void release(PooledCompressor compressor) {
+			if (!compressors.offer(compressor)) {
+				compressor.destroy();
+			}
+		}
+
+		int size() {
+			return compressors.size();
+		}
+	}
+}
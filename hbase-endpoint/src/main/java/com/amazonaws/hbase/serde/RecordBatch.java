@@ -0,0 +1,90 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the payload of a batch record, several records of one table written one after the other
+ * and compressed as a unit, so small entries share the compression dictionary and sinks count
+ * one record for the whole batch:
+ *
+ * <pre>
+ * batch := count:varint (length:varint record)*
+ * </pre>
+ *
+ * Each record is an uncompressed record of the format named by the RecordEnvelope, without an
+ * envelope of its own, in the order of the WAL entries. The payload must already be
+ * decompressed. next() hands out slices of the payload, nothing is copied. Not thread safe.
+ */
+public final class RecordBatch {
+	private final ByteBuffer buffer;
+	private final int count;
+	private int index;
+
+	private RecordBatch(ByteBuffer buffer, int count) {
+		this.buffer = buffer;
+		this.count = count;
+	}
+
+	/**
+	 * @param payload decompressed batch, from its position to its limit. Its position is not moved.
+	 * @return
+	 * @throws IOException if the count is malformed.
+	 */
+	public static RecordBatch wrap(ByteBuffer payload) throws IOException {
+		ByteBuffer buffer = payload.slice();
+		int count = readLength(buffer);
+		return new RecordBatch(buffer, count);
+	}
+
+	/**
+	 * @return the number of records in the batch.
+	 */
+	public int size() {
+		return count;
+	}
+
+	public boolean hasNext() {
+		return index < count;
+	}
+
+	/**
+	 * The next record of the batch.
+	 * @return a slice of the payload holding exactly the record.
+	 * @throws IOException if the batch is truncated or malformed.
+	 * @throws NoSuchElementException if all records were read.
+	 */
+	public ByteBuffer next() throws IOException {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		int length = readLength(buffer);
+		if (length > buffer.remaining()) {
+			throw new IOException("Truncated batch, record " + index + " of " + count + " needs " + length
+					+ " bytes, " + buffer.remaining() + " left");
+		}
+		ByteBuffer record = buffer.slice();
+		record.limit(length);
+		buffer.position(buffer.position() + length);
+		index++;
+		return record;
+	}
+
+	private static int readLength(ByteBuffer buffer) throws IOException {
+		int length;
+		try {
+			length = WALEntryBinaryFormat.readVarInt(buffer, buffer.position());
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			throw new IOException("Malformed batch", e);
+		}
+		if (length < 0) {
+			throw new IOException("Negative length " + length);
+		}
+		buffer.position(buffer.position() + WALEntryBinaryFormat.varIntSize(length));
+		return length;
+	}
+}
@@ -0,0 +1,111 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Header put in front of each record when hbase.replication.record-envelope is enabled, so
+ * consumers can tell the record format and compression from the record itself:
+ *
+ * <pre>
+ * envelope := 0xFE 0xCA version:u8 format:u8 compression:u8 payload
+ * </pre>
+ *
+ * format is RecordFormat.getId(), compression CompressionCodec.getId(), the payload is the
+ * record of that format compressed with that codec. Batch records, which pack several records of
+ * one table, have the BATCH_FLAG bit of the format byte set and a RecordBatch as payload, the
+ * whole batch compressed as a unit. The magic bytes are not a valid start of any
+ * of the record formats or of a gzip stream, so records with and without envelope can be told
+ * apart while the setting is rolled out.
+ */
+public final class RecordEnvelope {
+	public static final byte MAGIC_0 = (byte) 0xFE;
+	public static final byte MAGIC_1 = (byte) 0xCA;
+	public static final byte VERSION = 1;
+	public static final int HEADER_SIZE = 5;
+	/** Set in the format byte of batch records */
+	public static final byte BATCH_FLAG = (byte) 0x80;
+
+	private final RecordFormat format;
+	private final byte compression;
+	private final boolean batch;
+
+	public RecordEnvelope(RecordFormat format, byte compression) {
+		this(format, compression, false);
+	}
+
+	/**
+	 * @param format
+	 * @param compression
+	 * @param batch is the payload a RecordBatch.
+	 */
+	public RecordEnvelope(RecordFormat format, byte compression, boolean batch) {
+		this.format = format;
+		this.compression = compression;
+		this.batch = batch;
+	}
+
+	public RecordFormat getFormat() {
+		return format;
+	}
+
+	public byte getCompression() {
+		return compression;
+	}
+
+	public boolean isBatch() {
+		return batch;
+	}
+
+	/**
+	 * Writes the header, the payload follows.
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeHeader(OutputStream out) throws IOException {
+		out.write(MAGIC_0);
+		out.write(MAGIC_1);
+		out.write(VERSION);
+		out.write(batch ? format.getId() | BATCH_FLAG : format.getId());
+		out.write(compression);
+	}
+
+	/**
+	 * Does the record start with the envelope magic.
+	 * @param data
+	 * @param offset
+	 * @param length
+	 * @return
+	 */
+	public static boolean hasEnvelope(byte[] data, int offset, int length) {
+		return length >= HEADER_SIZE && data[offset] == MAGIC_0 && data[offset + 1] == MAGIC_1;
+	}
+
+	/**
+	 * Reads the header of a record that hasEnvelope().
+	 * @param data
+	 * @param offset
+	 * @return the envelope, the payload starts at offset + HEADER_SIZE.
+	 * @throws IOException on an unknown version or format.
+	 */
+	public static RecordEnvelope readHeader(byte[] data, int offset) throws IOException {
+		if (data[offset + 2] != VERSION) {
+			throw new IOException("Unsupported record envelope version " + data[offset + 2]);
+		}
+		RecordFormat format;
+		try {
+			format = RecordFormat.fromId((byte) (data[offset + 3] & ~BATCH_FLAG));
+		} catch (IllegalArgumentException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+		return new RecordEnvelope(format, data[offset + 4], (data[offset + 3] & BATCH_FLAG) != 0);
+	}
+
+	@Override
+	public String toString() {
+		return format + "/" + compression + (batch ? "/batch" : "");
+	}
+}
@@ -0,0 +1,204 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+import org.apache.hadoop.hbase.TableName;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * The formats WAL entries can be written in, selected with hbase.replication.record-format on the
+ * region servers and with the RECORDFORMAT environment variable in the lambda handlers.
+ */
+public enum RecordFormat {
+	/** Jackson json of HBaseWALEntry, byte arrays are base64 encoded. The default. */
+	JSON(0) {
+		@Override
+		public WALEntryEncoder newEncoder() {
+			return new WALEntryJsonEncoder(new ObjectMapper());
+		}
+
+		@Override
+		public WALEntryEncoder newEncoder(Function<TableName, WALEntryProjection> projections) {
+			return new WALEntryJsonEncoder(new ObjectMapper(), projections);
+		}
+
+		@Override
+		public boolean supportsProjection() {
+			return true;
+		}
+
+		@Override
+		public WALEntryDecoder newDecoder() {
+			return new WALEntryJsonDecoder();
+		}
+	},
+	/** Compact length-prefixed binary, see WALEntryBinaryEncoder. */
+	BINARY(1) {
+		@Override
+		public WALEntryEncoder newEncoder() {
+			return new WALEntryBinaryEncoder();
+		}
+
+		@Override
+		public WALEntryDecoder newDecoder() {
+			return new WALEntryBinaryDecoder();
+		}
+	},
+	/** Binary with row and family written once per group of cells, see WALEntryGroupedEncoder. */
+	GROUPED(6) {
+		@Override
+		public WALEntryEncoder newEncoder() {
+			return new WALEntryGroupedEncoder();
+		}
+
+		@Override
+		public WALEntryDecoder newDecoder() {
+			return new WALEntryGroupedDecoder();
+		}
+	},
+	/** Avro binary of WALEntry.avsc, prefixed with the schema fingerprint. See WALEntryAvroFormat. */
+	AVRO(2) {
+		@Override
+		public WALEntryEncoder newEncoder() {
+			return new WALEntryAvroEncoder();
+		}
+
+		@Override
+		public WALEntryDecoder newDecoder() {
+			return new WALEntryAvroDecoder();
+		}
+	},
+	/** WALProtos.WALKey followed by the cells in KeyValueCodec encoding, as in HBase's WAL files. */
+	CELLBLOCK(3) {
+		@Override
+		public WALEntryEncoder newEncoder() {
+			return new WALEntryCellBlockEncoder();
+		}
+
+		@Override
+		public WALEntryDecoder newDecoder() {
+			return new WALEntryCellBlockDecoder();
+		}
+	},
+	/** The json data model in Jackson's Smile encoding, byte arrays are written raw. */
+	SMILE(4) {
+		@Override
+		public WALEntryEncoder newEncoder() {
+			return new WALEntryJsonEncoder(new ObjectMapper(smileFactory()));
+		}
+
+		@Override
+		public WALEntryEncoder newEncoder(Function<TableName, WALEntryProjection> projections) {
+			return new WALEntryJsonEncoder(new ObjectMapper(smileFactory()), projections);
+		}
+
+		@Override
+		public boolean supportsProjection() {
+			return true;
+		}
+
+		@Override
+		public WALEntryDecoder newDecoder() {
+			return new WALEntryJsonDecoder(smileFactory());
+		}
+	},
+	/** The json data model in CBOR, byte arrays are written raw. */
+	CBOR(5) {
+		@Override
+		public WALEntryEncoder newEncoder() {
+			return new WALEntryJsonEncoder(new ObjectMapper(new CBORFactory()));
+		}
+
+		@Override
+		public WALEntryEncoder newEncoder(Function<TableName, WALEntryProjection> projections) {
+			return new WALEntryJsonEncoder(new ObjectMapper(new CBORFactory()), projections);
+		}
+
+		@Override
+		public boolean supportsProjection() {
+			return true;
+		}
+
+		@Override
+		public WALEntryDecoder newDecoder() {
+			return new WALEntryJsonDecoder(new CBORFactory());
+		}
+	};
+
+	private final byte id;
+
+	RecordFormat(int id) {
+		this.id = (byte) id;
+	}
+
+	/**
+	 * Stable id of the format, written to the record envelope.
+	 * @return
+	 */
+	public byte getId() {
+		return id;
+	}
+
+	public abstract WALEntryEncoder newEncoder();
+
+	public abstract WALEntryDecoder newDecoder();
+
+	/**
+	 * Encoder leaving out the fields that aren't part of the projection of the entry's table.
+	 * Formats that don't support projection ignore it and write every field.
+	 * @param projections
+	 * @return
+	 */
+	public WALEntryEncoder newEncoder(Function<TableName, WALEntryProjection> projections) {
+		return newEncoder();
+	}
+
+	/**
+	 * @return true if newEncoder(projections) applies the projection.
+	 */
+	public boolean supportsProjection() {
+		return false;
+	}
+
+	// By default Smile spreads binary over 7 bit bytes so it never contains a 0xFF, we don't need that.
+	private static SmileFactory smileFactory() {
+		SmileFactory factory = new SmileFactory();
+		factory.disable(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT);
+		return factory;
+	}
+
+	/**
+	 * @param id
+	 * @return the format with the given envelope id.
+	 * @throws IllegalArgumentException if there is no such format.
+	 */
+	public static RecordFormat fromId(byte id) {
+		for (RecordFormat format : values()) {
+			if (format.id == id) {
+				return format;
+			}
+		}
+		throw new IllegalArgumentException("Unknown record format id " + id);
+	}
+
+	/**
+	 * Case insensitive lookup.
+	 * @param name
+	 * @return the format, JSON if name is null or empty.
+	 * @throws IllegalArgumentException if there is no such format.
+	 */
+	public static RecordFormat fromString(String name) {
+		if (name == null || name.trim().isEmpty()) {
+			return JSON;
+		}
+		return valueOf(name.trim().toUpperCase(Locale.ROOT));
+	}
+}
@@ -0,0 +1,272 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.util.ByteBufferUtils;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Forward only cursor over the cells of an encoded record, see WALEntryView.cells(). The cursor
+ * is a flyweight: it points into the record's buffer and moves on with next(), nothing is copied
+ * or allocated per cell unless one of the clone methods is called. Not thread safe.
+ *
+ * A malformed record shows up as an IndexOutOfBoundsException or IllegalArgumentException.
+ */
+public abstract class WALCellCursor {
+	protected ByteBuffer buffer;
+	protected int remaining;
+
+	protected int rowPosition;
+	protected int rowLength;
+	protected int familyPosition;
+	protected int familyLength;
+	protected int qualifierPosition;
+	protected int qualifierLength;
+	protected int valuePosition;
+	protected int valueLength;
+	protected long timestamp;
+	protected byte typeCode;
+
+	/**
+	 * Moves to the next cell.
+	 * @return false when there are no more cells.
+	 */
+	public abstract boolean next();
+
+	/**
+	 * The record the positions are relative to. Read it with absolute gets only.
+	 * @return
+	 */
+	public ByteBuffer getBuffer() {
+		return buffer;
+	}
+
+	public int getRowPosition() {
+		return rowPosition;
+	}
+
+	public int getRowLength() {
+		return rowLength;
+	}
+
+	public int getFamilyPosition() {
+		return familyPosition;
+	}
+
+	public int getFamilyLength() {
+		return familyLength;
+	}
+
+	public int getQualifierPosition() {
+		return qualifierPosition;
+	}
+
+	public int getQualifierLength() {
+		return qualifierLength;
+	}
+
+	public int getValuePosition() {
+		return valuePosition;
+	}
+
+	public int getValueLength() {
+		return valueLength;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return the cell type.
+	 * @throws IOException on an unknown type code.
+	 */
+	public Cell.Type getType() throws IOException {
+		return WALEntryBinaryFormat.toType(typeCode);
+	}
+
+	public boolean matchingRow(byte[] row) {
+		return ByteBufferUtils.equals(buffer, rowPosition, rowLength, row, 0, row.length);
+	}
+
+	public boolean matchingFamily(byte[] family) {
+		return ByteBufferUtils.equals(buffer, familyPosition, familyLength, family, 0, family.length);
+	}
+
+	public boolean matchingQualifier(byte[] qualifier) {
+		return ByteBufferUtils.equals(buffer, qualifierPosition, qualifierLength, qualifier, 0, qualifier.length);
+	}
+
+	public byte[] cloneRow() {
+		return copy(rowPosition, rowLength);
+	}
+
+	public byte[] cloneFamily() {
+		return copy(familyPosition, familyLength);
+	}
+
+	public byte[] cloneQualifier() {
+		return copy(qualifierPosition, qualifierLength);
+	}
+
+	public byte[] cloneValue() {
+		return copy(valuePosition, valueLength);
+	}
+
+	@Override
+	public String toString() {
+		return ByteBufferUtils.toStringBinary(buffer, rowPosition, rowLength) + "/"
+				+ ByteBufferUtils.toStringBinary(buffer, familyPosition, familyLength) + ":"
+				+ ByteBufferUtils.toStringBinary(buffer, qualifierPosition, qualifierLength) + "/"
+				+ timestamp + "/" + typeCode + "/vlen=" + valueLength;
+	}
+
+	/**
+	 * Positions the cursor before the first cell.
+	 * @param buffer the record.
+	 * @param position where the cells start.
+	 * @param count number of cells.
+	 */
+	abstract void reset(ByteBuffer buffer, int position, int count);
+
+	private byte[] copy(int position, int length) {
+		byte[] bytes = new byte[length];
+		ByteBufferUtils.copyFromBufferToArray(bytes, buffer, position, 0, length);
+		return bytes;
+	}
+
+	/**
+	 * Skips the varint at position.
+	 * @return the position of the first byte after it.
+	 */
+	static int skipLength(ByteBuffer buffer, int position) {
+		return position + WALEntryBinaryFormat.varIntSize(WALEntryBinaryFormat.readVarInt(buffer, position));
+	}
+
+	/**
+	 * Skips the length prefixed bytes at position.
+	 * @return the position of the first byte after them.
+	 */
+	static int skipBytes(ByteBuffer buffer, int position) {
+		return skipLength(buffer, position) + WALEntryBinaryFormat.readVarInt(buffer, position);
+	}
+
+	/** Cells of the binary format, each with all its components. */
+	static final class BinaryCellCursor extends WALCellCursor {
+		private int position;
+
+		@Override
+		void reset(ByteBuffer buffer, int position, int count) {
+			this.buffer = buffer;
+			this.position = position;
+			this.remaining = count;
+		}
+
+		@Override
+		public boolean next() {
+			if (remaining <= 0) {
+				return false;
+			}
+			remaining--;
+			rowLength = WALEntryBinaryFormat.readVarInt(buffer, position);
+			rowPosition = skipLength(buffer, position);
+			familyLength = WALEntryBinaryFormat.readVarInt(buffer, rowPosition + rowLength);
+			familyPosition = skipLength(buffer, rowPosition + rowLength);
+			qualifierLength = WALEntryBinaryFormat.readVarInt(buffer, familyPosition + familyLength);
+			qualifierPosition = skipLength(buffer, familyPosition + familyLength);
+			position = qualifierPosition + qualifierLength;
+			timestamp = buffer.getLong(position);
+			typeCode = buffer.get(position + Bytes.SIZEOF_LONG);
+			position += Bytes.SIZEOF_LONG + 1;
+			valueLength = WALEntryBinaryFormat.readVarInt(buffer, position);
+			valuePosition = skipLength(buffer, position);
+			position = valuePosition + valueLength;
+			return true;
+		}
+	}
+
+	/**
+	 * Cells of the grouped format. Row and family stay put for a whole group, qualifiers, timestamps,
+	 * types and values are walked in step through their arrays.
+	 */
+	static final class GroupedCellCursor extends WALCellCursor {
+		// Next row or family group, family groups left in the current row group, cells left in the
+		// current family group.
+		private int position;
+		private int familiesLeft;
+		private int cellsLeft;
+		private int cellIndex;
+		private int nextQualifier;
+		private int timestamps;
+		private int types;
+		private int nextValue;
+
+		@Override
+		void reset(ByteBuffer buffer, int position, int count) {
+			this.buffer = buffer;
+			this.remaining = count;
+			// Skip the row group count, groups are read until all cells are seen.
+			this.position = skipLength(buffer, position);
+			this.familiesLeft = 0;
+			this.cellsLeft = 0;
+		}
+
+		@Override
+		public boolean next() {
+			if (remaining <= 0) {
+				return false;
+			}
+			while (cellsLeft == 0) {
+				if (familiesLeft == 0) {
+					rowLength = WALEntryBinaryFormat.readVarInt(buffer, position);
+					rowPosition = skipLength(buffer, position);
+					position = rowPosition + rowLength;
+					familiesLeft = WALEntryBinaryFormat.readVarInt(buffer, position);
+					position = skipLength(buffer, position);
+					continue;
+				}
+				startFamilyGroup();
+			}
+			remaining--;
+			cellsLeft--;
+			qualifierLength = WALEntryBinaryFormat.readVarInt(buffer, nextQualifier);
+			qualifierPosition = skipLength(buffer, nextQualifier);
+			nextQualifier = qualifierPosition + qualifierLength;
+			timestamp = buffer.getLong(timestamps + cellIndex * Bytes.SIZEOF_LONG);
+			typeCode = buffer.get(types + cellIndex);
+			valueLength = WALEntryBinaryFormat.readVarInt(buffer, nextValue);
+			valuePosition = skipLength(buffer, nextValue);
+			nextValue = valuePosition + valueLength;
+			cellIndex++;
+			if (cellsLeft == 0) {
+				position = nextValue;
+			}
+			return true;
+		}
+
+		private void startFamilyGroup() {
+			familiesLeft--;
+			familyLength = WALEntryBinaryFormat.readVarInt(buffer, position);
+			familyPosition = skipLength(buffer, position);
+			position = familyPosition + familyLength;
+			int count = WALEntryBinaryFormat.readVarInt(buffer, position);
+			position = skipLength(buffer, position);
+			// Qualifiers are variable length, skip over them once to find the fixed size arrays.
+			nextQualifier = position;
+			int end = position;
+			for (int i = 0; i < count; i++) {
+				end = skipBytes(buffer, end);
+			}
+			cellsLeft = count;
+			cellIndex = 0;
+			timestamps = end;
+			types = timestamps + count * Bytes.SIZEOF_LONG;
+			nextValue = types + count;
+		}
+	}
+}
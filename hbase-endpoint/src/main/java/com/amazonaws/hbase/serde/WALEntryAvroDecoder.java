@@ -0,0 +1,109 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.wal.WALEdit;
+
+import com.amazonaws.hbase.model.HBaseCell;
+import com.amazonaws.hbase.model.HBaseWALEdit;
+import com.amazonaws.hbase.model.HBaseWALEntry;
+import com.amazonaws.hbase.model.HBaseWALKey;
+import com.amazonaws.hbase.model.MVCCWALEntry;
+
+/**
+ * Reads records written by WALEntryAvroEncoder into the HBaseWALEntry model. Consumers that
+ * prefer Avro's own API can skip the header and read the rest with a GenericDatumReader of
+ * WALEntryAvroFormat.SCHEMA instead.
+ */
+public class WALEntryAvroDecoder implements WALEntryDecoder {
+
+	@Override
+	public HBaseWALEntry decode(InputStream in) throws IOException {
+		WALEntryAvroFormat.readHeader(in);
+		return read(DecoderFactory.get().directBinaryDecoder(in, null));
+	}
+
+	@Override
+	public HBaseWALEntry decode(byte[] data) throws IOException {
+		WALEntryAvroFormat.checkHeader(data, 0, data.length);
+		return read(DecoderFactory.get().binaryDecoder(data, WALEntryAvroFormat.HEADER_LENGTH,
+				data.length - WALEntryAvroFormat.HEADER_LENGTH, null));
+	}
+
+	private HBaseWALEntry read(BinaryDecoder decoder) throws IOException {
+		HBaseWALEntry entry = new HBaseWALEntry();
+		entry.setWalKey(readKey(decoder));
+		entry.setWalEdit(readEdit(decoder));
+		return entry;
+	}
+
+	private HBaseWALKey readKey(BinaryDecoder decoder) throws IOException {
+		HBaseWALKey key = new HBaseWALKey();
+		key.setWriteTime(decoder.readLong());
+		key.setSequenceId(decoder.readLong());
+		key.setTableName(decoder.readString(null).toString());
+		key.setNonce(decoder.readLong());
+		key.setNonceGroup(decoder.readLong());
+		key.setOrigLogSeqNum(decoder.readLong());
+		if (decoder.readIndex() == 0) {
+			decoder.readNull();
+		} else {
+			key.setEncodedRegionName(readBytes(decoder));
+		}
+		if (decoder.readIndex() == 0) {
+			decoder.readNull();
+		} else {
+			MVCCWALEntry writeEntry = new MVCCWALEntry();
+			writeEntry.setWriteNumber(decoder.readLong());
+			key.setWriteEntry(writeEntry);
+		}
+		return key;
+	}
+
+	private HBaseWALEdit readEdit(BinaryDecoder decoder) throws IOException {
+		HBaseWALEdit edit = new HBaseWALEdit();
+		List<HBaseCell> cells = new ArrayList<HBaseCell>();
+		for (long n = decoder.readArrayStart(); n != 0; n = decoder.arrayNext()) {
+			for (long i = 0; i < n; i++) {
+				HBaseCell cell = new HBaseCell();
+				cell.setRow(readBytes(decoder));
+				cell.setFamily(readBytes(decoder));
+				cell.setQualifier(readBytes(decoder));
+				cell.setTimeStamp(decoder.readLong());
+				cell.setType(WALEntryAvroFormat.type(decoder.readEnum()).toString());
+				cell.setValue(readBytes(decoder));
+				cells.add(cell);
+			}
+		}
+		Set<byte[]> families = new TreeSet<byte[]>(Bytes.BYTES_COMPARATOR);
+		for (long n = decoder.readArrayStart(); n != 0; n = decoder.arrayNext()) {
+			for (long i = 0; i < n; i++) {
+				families.add(readBytes(decoder));
+			}
+		}
+		edit.setCells(cells);
+		edit.setFamilies(families);
+		edit.setReplay(decoder.readBoolean());
+		edit.setMETAFAMILY(WALEdit.METAFAMILY);
+		return edit;
+	}
+
+	private static byte[] readBytes(BinaryDecoder decoder) throws IOException {
+		ByteBuffer buffer = decoder.readBytes(null);
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,115 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.hadoop.hbase.ByteBufferExtendedCell;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+import org.apache.hadoop.hbase.wal.WALEdit;
+import org.apache.hadoop.hbase.wal.WALKeyImpl;
+
+/**
+ * Writes WAL entries as Avro records of WALEntryAvroFormat.SCHEMA, after the fingerprint header.
+ * The fields are written directly in schema order, no GenericRecord is built on the way.
+ */
+public class WALEntryAvroEncoder implements WALEntryEncoder {
+
+	@Override
+	public void encode(Entry entry, OutputStream out) throws IOException {
+		try (OutputStream o = out) {
+			o.write(WALEntryAvroFormat.header());
+			BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(o, null);
+			writeKey(encoder, entry.getKey());
+			writeEdit(encoder, entry.getEdit());
+			encoder.flush();
+		}
+	}
+
+	private void writeKey(BinaryEncoder encoder, WALKeyImpl key) throws IOException {
+		encoder.writeLong(key.getWriteTime());
+		encoder.writeLong(key.getSequenceId());
+		// strings are encoded like bytes, and the table name is already utf-8.
+		encoder.writeBytes(key.getTableName().getName());
+		encoder.writeLong(key.getNonce());
+		encoder.writeLong(key.getNonceGroup());
+		encoder.writeLong(key.getOrigLogSeqNum());
+		if (key.getEncodedRegionName() == null) {
+			encoder.writeIndex(0);
+			encoder.writeNull();
+		} else {
+			encoder.writeIndex(1);
+			encoder.writeBytes(key.getEncodedRegionName());
+		}
+		if (key.getWriteEntry() == null) {
+			encoder.writeIndex(0);
+			encoder.writeNull();
+		} else {
+			encoder.writeIndex(1);
+			encoder.writeLong(key.getWriteEntry().getWriteNumber());
+		}
+	}
+
+	private void writeEdit(BinaryEncoder encoder, WALEdit edit) throws IOException {
+		List<Cell> cells = edit.getCells();
+		encoder.writeArrayStart();
+		encoder.setItemCount(cells.size());
+		for (int i = 0; i < cells.size(); i++) {
+			encoder.startItem();
+			writeCell(encoder, cells.get(i));
+		}
+		encoder.writeArrayEnd();
+
+		Set<byte[]> families = edit.getFamilies();
+		encoder.writeArrayStart();
+		encoder.setItemCount(families == null ? 0 : families.size());
+		if (families != null) {
+			for (byte[] family : families) {
+				encoder.startItem();
+				encoder.writeBytes(family);
+			}
+		}
+		encoder.writeArrayEnd();
+		encoder.writeBoolean(edit.isReplay());
+	}
+
+	private void writeCell(BinaryEncoder encoder, Cell cell) throws IOException {
+		if (cell instanceof ByteBufferExtendedCell) {
+			ByteBufferExtendedCell bbCell = (ByteBufferExtendedCell) cell;
+			writeBytes(encoder, bbCell.getRowByteBuffer(), bbCell.getRowPosition(), cell.getRowLength());
+			writeBytes(encoder, bbCell.getFamilyByteBuffer(), bbCell.getFamilyPosition(), cell.getFamilyLength());
+			writeBytes(encoder, bbCell.getQualifierByteBuffer(), bbCell.getQualifierPosition(),
+					cell.getQualifierLength());
+			encoder.writeLong(cell.getTimestamp());
+			encoder.writeEnum(WALEntryAvroFormat.typeIndex(cell.getType()));
+			writeBytes(encoder, bbCell.getValueByteBuffer(), bbCell.getValuePosition(), cell.getValueLength());
+		} else {
+			encoder.writeBytes(cell.getRowArray(), cell.getRowOffset(), cell.getRowLength());
+			encoder.writeBytes(cell.getFamilyArray(), cell.getFamilyOffset(), cell.getFamilyLength());
+			encoder.writeBytes(cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength());
+			encoder.writeLong(cell.getTimestamp());
+			encoder.writeEnum(WALEntryAvroFormat.typeIndex(cell.getType()));
+			encoder.writeBytes(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+		}
+	}
+
+	private static void writeBytes(BinaryEncoder encoder, ByteBuffer buffer, int position, int length)
+			throws IOException {
+		if (buffer.hasArray()) {
+			encoder.writeBytes(buffer.array(), buffer.arrayOffset() + position, length);
+			return;
+		}
+		ByteBuffer slice = buffer.duplicate();
+		slice.limit(position + length);
+		slice.position(position);
+		encoder.writeBytes(slice);
+	}
+}
@@ -0,0 +1,108 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.hadoop.hbase.Cell;
+
+/**
+ * The Avro schema of the avro record format, WALEntry.avsc next to this class, and the header
+ * every record starts with: 0xC3 0x01 followed by the little endian CRC-64-AVRO fingerprint of
+ * the schema, as in Avro's single object encoding. Consumers use the fingerprint to tell which
+ * schema a record was written with, the rest of the record is plain Avro binary encoding.
+ */
+public final class WALEntryAvroFormat {
+	public static final Schema SCHEMA;
+	public static final long FINGERPRINT;
+	public static final int HEADER_LENGTH = 10;
+
+	private static final byte[] HEADER = new byte[HEADER_LENGTH];
+	private static final int[] TYPE_INDEX = new int[256];
+	private static final Cell.Type[] TYPES;
+
+	static {
+		try (InputStream in = WALEntryAvroFormat.class.getResourceAsStream("WALEntry.avsc")) {
+			SCHEMA = new Schema.Parser().parse(in);
+		} catch (IOException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+		FINGERPRINT = SchemaNormalization.parsingFingerprint64(SCHEMA);
+		HEADER[0] = (byte) 0xC3;
+		HEADER[1] = (byte) 0x01;
+		for (int i = 0; i < 8; i++) {
+			HEADER[2 + i] = (byte) (FINGERPRINT >>> (8 * i));
+		}
+
+		Schema cellType = SCHEMA.getField("edit").schema().getField("cells").schema().getElementType()
+				.getField("type").schema();
+		TYPES = new Cell.Type[cellType.getEnumSymbols().size()];
+		Arrays.fill(TYPE_INDEX, -1);
+		for (Cell.Type type : Cell.Type.values()) {
+			int index = cellType.getEnumOrdinal(type.name());
+			TYPE_INDEX[type.getCode() & 0xff] = index;
+			TYPES[index] = type;
+		}
+	}
+
+	private WALEntryAvroFormat() {
+	}
+
+	/**
+	 * A copy of the header records start with.
+	 * @return
+	 */
+	public static byte[] getHeader() {
+		return HEADER.clone();
+	}
+
+	static byte[] header() {
+		return HEADER;
+	}
+
+	/**
+	 * Reads the header and checks the record was written with our schema.
+	 * @param in
+	 * @throws IOException if the header is missing or the fingerprint doesn't match.
+	 */
+	public static void readHeader(InputStream in) throws IOException {
+		byte[] header = new byte[HEADER_LENGTH];
+		new DataInputStream(in).readFully(header);
+		checkHeader(header, 0, HEADER_LENGTH);
+	}
+
+	/**
+	 * Checks the header at offset of data.
+	 * @param data
+	 * @param offset
+	 * @param length bytes available from offset
+	 * @throws IOException if the header is missing or the fingerprint doesn't match.
+	 */
+	public static void checkHeader(byte[] data, int offset, int length) throws IOException {
+		if (length < HEADER_LENGTH || data[offset] != HEADER[0] || data[offset + 1] != HEADER[1]) {
+			throw new IOException("Not an avro WAL entry record");
+		}
+		for (int i = 2; i < HEADER_LENGTH; i++) {
+			if (data[offset + i] != HEADER[i]) {
+				throw new IOException("Record was written with an unknown schema");
+			}
+		}
+	}
+
+	static int typeIndex(Cell.Type type) {
+		return TYPE_INDEX[type.getCode() & 0xff];
+	}
+
+	static Cell.Type type(int index) throws IOException {
+		if (index < 0 || index >= TYPES.length) {
+			throw new IOException("Unknown cell type index " + index);
+		}
+		return TYPES[index];
+	}
+}
@@ -0,0 +1,99 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.wal.WALEdit;
+
+import com.amazonaws.hbase.model.HBaseCell;
+import com.amazonaws.hbase.model.HBaseWALEdit;
+import com.amazonaws.hbase.model.HBaseWALEntry;
+import com.amazonaws.hbase.model.HBaseWALKey;
+import com.amazonaws.hbase.model.MVCCWALEntry;
+
+/**
+ * Reads records written by WALEntryBinaryEncoder. The resulting HBaseWALEntry is the same as
+ * the json decoder returns for the json record of the entry.
+ */
+public class WALEntryBinaryDecoder implements WALEntryDecoder {
+
+	@Override
+	public HBaseWALEntry decode(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		byte version = data.readByte();
+		if (version != getVersion()) {
+			throw new IOException("Unsupported binary record version " + version);
+		}
+		HBaseWALEntry entry = new HBaseWALEntry();
+		entry.setWalKey(readKey(data));
+		entry.setWalEdit(readEdit(data));
+		return entry;
+	}
+
+	/**
+	 * @return the version byte the records start with.
+	 */
+	protected byte getVersion() {
+		return WALEntryBinaryFormat.VERSION;
+	}
+
+	protected HBaseWALKey readKey(DataInputStream data) throws IOException {
+		HBaseWALKey key = new HBaseWALKey();
+		key.setWriteTime(data.readLong());
+		key.setSequenceId(data.readLong());
+		key.setNonce(data.readLong());
+		key.setNonceGroup(data.readLong());
+		key.setOrigLogSeqNum(data.readLong());
+		key.setTableName(Bytes.toString(readBytes(data)));
+		int encodedRegionNameLength = WALEntryBinaryFormat.readLength(data);
+		if (encodedRegionNameLength > 0) {
+			byte[] encodedRegionName = new byte[encodedRegionNameLength - 1];
+			data.readFully(encodedRegionName);
+			key.setEncodedRegionName(encodedRegionName);
+		}
+		if (data.readBoolean()) {
+			MVCCWALEntry writeEntry = new MVCCWALEntry();
+			writeEntry.setWriteNumber(data.readLong());
+			key.setWriteEntry(writeEntry);
+		}
+		return key;
+	}
+
+	protected HBaseWALEdit readEdit(DataInputStream data) throws IOException {
+		HBaseWALEdit edit = new HBaseWALEdit();
+		edit.setReplay(data.readBoolean());
+		edit.setMETAFAMILY(WALEdit.METAFAMILY);
+		int count = WALEntryBinaryFormat.readLength(data);
+		List<HBaseCell> cells = new ArrayList<HBaseCell>(Math.min(count, 1024));
+		Set<byte[]> families = new TreeSet<byte[]>(Bytes.BYTES_COMPARATOR);
+		for (int i = 0; i < count; i++) {
+			HBaseCell cell = new HBaseCell();
+			cell.setRow(readBytes(data));
+			cell.setFamily(readBytes(data));
+			cell.setQualifier(readBytes(data));
+			cell.setTimeStamp(data.readLong());
+			cell.setType(WALEntryBinaryFormat.toType(data.readByte()).toString());
+			cell.setValue(readBytes(data));
+			cells.add(cell);
+			families.add(cell.getFamily());
+		}
+		edit.setCells(cells);
+		edit.setFamilies(families);
+		return edit;
+	}
+
+	protected static byte[] readBytes(DataInputStream data) throws IOException {
+		byte[] bytes = new byte[WALEntryBinaryFormat.readLength(data)];
+		data.readFully(bytes);
+		return bytes;
+	}
+}
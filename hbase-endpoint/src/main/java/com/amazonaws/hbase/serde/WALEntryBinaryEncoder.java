@@ -0,0 +1,131 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.apache.hadoop.hbase.ByteBufferExtendedCell;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.util.ByteBufferUtils;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+import org.apache.hadoop.hbase.wal.WALEdit;
+import org.apache.hadoop.hbase.wal.WALKeyImpl;
+
+/**
+ * Writes WAL entries in the binary format described in WALEntryBinaryFormat. Cell components are
+ * written raw, from the cell's backing array or its ByteBuffers for off-heap cells.
+ */
+public class WALEntryBinaryEncoder implements WALEntryEncoder {
+
+	@Override
+	public void encode(Entry entry, OutputStream out) throws IOException {
+		try (DataOutputStream data = new DataOutputStream(out)) {
+			data.writeByte(getVersion());
+			writeKey(data, entry.getKey());
+			writeEdit(data, entry.getEdit());
+		}
+	}
+
+	/**
+	 * @return the version byte the records start with.
+	 */
+	protected byte getVersion() {
+		return WALEntryBinaryFormat.VERSION;
+	}
+
+	protected void writeKey(DataOutputStream data, WALKeyImpl key) throws IOException {
+		data.writeLong(key.getWriteTime());
+		data.writeLong(key.getSequenceId());
+		data.writeLong(key.getNonce());
+		data.writeLong(key.getNonceGroup());
+		data.writeLong(key.getOrigLogSeqNum());
+		writeBytes(data, key.getTableName().getName());
+		byte[] encodedRegionName = key.getEncodedRegionName();
+		if (encodedRegionName == null) {
+			WALEntryBinaryFormat.writeVarInt(data, 0);
+		} else {
+			WALEntryBinaryFormat.writeVarInt(data, encodedRegionName.length + 1);
+			data.write(encodedRegionName);
+		}
+		if (key.getWriteEntry() == null) {
+			data.writeBoolean(false);
+		} else {
+			data.writeBoolean(true);
+			data.writeLong(key.getWriteEntry().getWriteNumber());
+		}
+	}
+
+	protected void writeEdit(DataOutputStream data, WALEdit edit) throws IOException {
+		data.writeBoolean(edit.isReplay());
+		List<Cell> cells = edit.getCells();
+		WALEntryBinaryFormat.writeVarInt(data, cells.size());
+		for (int i = 0; i < cells.size(); i++) {
+			Cell cell = cells.get(i);
+			writeRow(data, cell);
+			writeFamily(data, cell);
+			writeQualifier(data, cell);
+			data.writeLong(cell.getTimestamp());
+			data.writeByte(cell.getType().getCode());
+			writeValue(data, cell);
+		}
+	}
+
+	// Off-heap cells are copied from their ByteBuffers, the get*Array() methods would copy the cell first.
+
+	protected static void writeRow(DataOutputStream data, Cell cell) throws IOException {
+		if (cell instanceof ByteBufferExtendedCell) {
+			ByteBufferExtendedCell bbCell = (ByteBufferExtendedCell) cell;
+			writeBytes(data, bbCell.getRowByteBuffer(), bbCell.getRowPosition(), bbCell.getRowLength());
+		} else {
+			writeBytes(data, cell.getRowArray(), cell.getRowOffset(), cell.getRowLength());
+		}
+	}
+
+	protected static void writeFamily(DataOutputStream data, Cell cell) throws IOException {
+		if (cell instanceof ByteBufferExtendedCell) {
+			ByteBufferExtendedCell bbCell = (ByteBufferExtendedCell) cell;
+			writeBytes(data, bbCell.getFamilyByteBuffer(), bbCell.getFamilyPosition(), bbCell.getFamilyLength());
+		} else {
+			writeBytes(data, cell.getFamilyArray(), cell.getFamilyOffset(), cell.getFamilyLength());
+		}
+	}
+
+	protected static void writeQualifier(DataOutputStream data, Cell cell) throws IOException {
+		if (cell instanceof ByteBufferExtendedCell) {
+			ByteBufferExtendedCell bbCell = (ByteBufferExtendedCell) cell;
+			writeBytes(data, bbCell.getQualifierByteBuffer(), bbCell.getQualifierPosition(),
+					bbCell.getQualifierLength());
+		} else {
+			writeBytes(data, cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength());
+		}
+	}
+
+	protected static void writeValue(DataOutputStream data, Cell cell) throws IOException {
+		if (cell instanceof ByteBufferExtendedCell) {
+			ByteBufferExtendedCell bbCell = (ByteBufferExtendedCell) cell;
+			writeBytes(data, bbCell.getValueByteBuffer(), bbCell.getValuePosition(), bbCell.getValueLength());
+		} else {
+			writeBytes(data, cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+		}
+	}
+
+	private static void writeBytes(DataOutputStream data, ByteBuffer buffer, int position, int length)
+			throws IOException {
+		WALEntryBinaryFormat.writeVarInt(data, length);
+		ByteBufferUtils.copyBufferToStream((OutputStream) data, buffer, position, length);
+	}
+
+	private static void writeBytes(DataOutputStream data, byte[] bytes) throws IOException {
+		writeBytes(data, bytes, 0, bytes.length);
+	}
+
+	private static void writeBytes(DataOutputStream data, byte[] bytes, int offset, int length) throws IOException {
+		WALEntryBinaryFormat.writeVarInt(data, length);
+		data.write(bytes, offset, length);
+	}
+}
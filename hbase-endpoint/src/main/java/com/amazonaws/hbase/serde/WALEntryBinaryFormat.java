@@ -0,0 +1,126 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.hbase.Cell;
+
+/**
+ * Layout of the binary record format. All numbers are big endian, lengths and counts are unsigned
+ * varints (7 bits per byte, least significant group first).
+ *
+ * <pre>
+ * record    := version:u8 key edit
+ * key       := writeTime:i64 sequenceId:i64 nonce:i64 nonceGroup:i64 origLogSeqNum:i64
+ *              tablename:bytes encodedRegionName:nullable-bytes
+ *              hasWriteEntry:u8 [writeNumber:i64]
+ * edit      := replay:u8 cellCount:varint cell*
+ * cell      := row:bytes family:bytes qualifier:bytes timestamp:i64 type:u8 value:bytes
+ * bytes     := length:varint byte*
+ * nullable-bytes := 0 | (length + 1):varint byte*
+ * </pre>
+ *
+ * The cell type is the Cell.Type code. The families and metafamily of the json format aren't
+ * written, decoders derive them from the cells.
+ *
+ * The grouped variant, written by WALEntryGroupedEncoder, stores row and family once for each run
+ * of consecutive cells that share them, the other cell components follow as arrays:
+ *
+ * <pre>
+ * record       := GROUPED_VERSION:u8 key grouped-edit
+ * grouped-edit := replay:u8 cellCount:varint rowCount:varint row-group*
+ * row-group    := row:bytes familyCount:varint family-group*
+ * family-group := family:bytes count:varint qualifier:bytes* timestamp:i64* type:u8* value:bytes*
+ * </pre>
+ *
+ * Since groups are runs, cells are decoded in the order they were in the WALEdit.
+ */
+public final class WALEntryBinaryFormat {
+	public static final byte VERSION = 1;
+	public static final byte GROUPED_VERSION = 2;
+
+	private static final Cell.Type[] TYPES = new Cell.Type[256];
+	static {
+		for (Cell.Type type : Cell.Type.values()) {
+			TYPES[type.getCode() & 0xff] = type;
+		}
+	}
+
+	private WALEntryBinaryFormat() {
+	}
+
+	public static void writeVarInt(DataOutput out, int value) throws IOException {
+		while ((value & ~0x7f) != 0) {
+			out.writeByte((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	public static int readVarInt(DataInput in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			byte b = in.readByte();
+			value |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	/**
+	 * Reads a length written by writeVarInt, rejecting negative values.
+	 */
+	public static int readLength(DataInput in) throws IOException {
+		int length = readVarInt(in);
+		if (length < 0) {
+			throw new IOException("Negative length " + length);
+		}
+		return length;
+	}
+
+	/**
+	 * Reads a varint at an absolute position, the buffer's own position doesn't move.
+	 * @param buffer
+	 * @param position
+	 * @return the value, varIntSize(value) bytes were read.
+	 * @throws IllegalArgumentException if the varint is malformed.
+	 */
+	public static int readVarInt(ByteBuffer buffer, int position) {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			byte b = buffer.get(position++);
+			value |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint");
+	}
+
+	/**
+	 * @return the number of bytes writeVarInt writes for the value.
+	 */
+	public static int varIntSize(int value) {
+		int size = 1;
+		while ((value & ~0x7f) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	public static Cell.Type toType(byte code) throws IOException {
+		Cell.Type type = TYPES[code & 0xff];
+		if (type == null) {
+			throw new IOException("Unknown cell type " + code);
+		}
+		return type;
+	}
+}
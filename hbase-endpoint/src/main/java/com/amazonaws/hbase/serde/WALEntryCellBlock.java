@@ -0,0 +1,30 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.util.List;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.WALProtos;
+
+/**
+ * A decoded cellblock record: the WAL key protobuf and the cells that followed it.
+ */
+public class WALEntryCellBlock {
+	private final WALProtos.WALKey key;
+	private final List<Cell> cells;
+
+	public WALEntryCellBlock(WALProtos.WALKey key, List<Cell> cells) {
+		this.key = key;
+		this.cells = cells;
+	}
+
+	public WALProtos.WALKey getKey() {
+		return key;
+	}
+
+	public List<Cell> getCells() {
+		return cells;
+	}
+}
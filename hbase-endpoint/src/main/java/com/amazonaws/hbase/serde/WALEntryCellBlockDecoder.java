@@ -0,0 +1,90 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.codec.Codec;
+import org.apache.hadoop.hbase.codec.KeyValueCodec;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.WALProtos;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.wal.WALEdit;
+
+import com.amazonaws.hbase.model.HBaseCell;
+import com.amazonaws.hbase.model.HBaseWALEdit;
+import com.amazonaws.hbase.model.HBaseWALEntry;
+import com.amazonaws.hbase.model.HBaseWALKey;
+
+/**
+ * Reads records written by WALEntryCellBlockEncoder. decodeCells() returns real Cells that can
+ * be applied to a table as they are (for example with Put.add(Cell)), decode() maps them to the
+ * HBaseWALEntry model like the other formats. Like HBase's WAL files, the cellblock format
+ * doesn't carry the MVCC write entry and the replay flag, they're always null and false here.
+ */
+public class WALEntryCellBlockDecoder implements WALEntryDecoder {
+	private final Codec codec = new KeyValueCodec();
+
+	/**
+	 * Decode the WAL key and the cells of one record.
+	 * @param in
+	 * @return
+	 * @throws IOException if the record is malformed.
+	 */
+	public WALEntryCellBlock decodeCells(InputStream in) throws IOException {
+		WALProtos.WALKey key = WALProtos.WALKey.parseDelimitedFrom(in);
+		if (key == null) {
+			throw new EOFException("No WAL key in record");
+		}
+		int count = key.getFollowingKvCount();
+		List<Cell> cells = new ArrayList<Cell>(count);
+		Codec.Decoder decoder = codec.getDecoder(in);
+		for (int i = 0; i < count; i++) {
+			if (!decoder.advance()) {
+				throw new EOFException("Expected " + count + " cells, found " + i);
+			}
+			cells.add(decoder.current());
+		}
+		return new WALEntryCellBlock(key, cells);
+	}
+
+	@Override
+	public HBaseWALEntry decode(InputStream in) throws IOException {
+		WALEntryCellBlock block = decodeCells(in);
+		WALProtos.WALKey key = block.getKey();
+
+		HBaseWALKey walKey = new HBaseWALKey();
+		walKey.setWriteTime(key.getWriteTime());
+		walKey.setSequenceId(key.getLogSequenceNumber());
+		walKey.setTableName(Bytes.toString(key.getTableName().toByteArray()));
+		walKey.setNonce(key.getNonce());
+		walKey.setNonceGroup(key.getNonceGroup());
+		walKey.setOrigLogSeqNum(key.getOrigSequenceNumber());
+		walKey.setEncodedRegionName(key.getEncodedRegionName().toByteArray());
+
+		List<HBaseCell> cells = new ArrayList<HBaseCell>(block.getCells().size());
+		Set<byte[]> families = new TreeSet<byte[]>(Bytes.BYTES_COMPARATOR);
+		for (Cell cell : block.getCells()) {
+			HBaseCell hbaseCell = new HBaseCell(cell);
+			cells.add(hbaseCell);
+			families.add(hbaseCell.getFamily());
+		}
+		HBaseWALEdit walEdit = new HBaseWALEdit();
+		walEdit.setCells(cells);
+		walEdit.setFamilies(families);
+		walEdit.setReplay(false);
+		walEdit.setMETAFAMILY(WALEdit.METAFAMILY);
+
+		HBaseWALEntry entry = new HBaseWALEntry();
+		entry.setWalKey(walKey);
+		entry.setWalEdit(walEdit);
+		return entry;
+	}
+}
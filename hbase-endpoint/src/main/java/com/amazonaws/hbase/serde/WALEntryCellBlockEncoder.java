@@ -0,0 +1,41 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.codec.Codec;
+import org.apache.hadoop.hbase.codec.KeyValueCodec;
+import org.apache.hadoop.hbase.regionserver.wal.WALCellCodec;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.WALProtos;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+
+/**
+ * Writes WAL entries the way HBase lays them out in its own WAL files: the key as a length
+ * delimited WALProtos.WALKey, whose following_kv_count tells how many cells follow, then the
+ * cells encoded with KeyValueCodec. Consumers decode them into real Cells with HBase's libraries,
+ * see WALEntryCellBlockDecoder.
+ */
+public class WALEntryCellBlockEncoder implements WALEntryEncoder {
+	private final Codec codec = new KeyValueCodec();
+
+	@Override
+	public void encode(Entry entry, OutputStream out) throws IOException {
+		try (OutputStream o = out) {
+			List<Cell> cells = entry.getEdit().getCells();
+			WALProtos.WALKey.Builder key = entry.getKey().getBuilder(WALCellCodec.getNoneCompressor());
+			key.setFollowingKvCount(cells.size());
+			key.build().writeDelimitedTo(o);
+
+			Codec.Encoder encoder = codec.getEncoder(o);
+			for (int i = 0; i < cells.size(); i++) {
+				encoder.write(cells.get(i));
+			}
+			encoder.flush();
+		}
+	}
+}
@@ -0,0 +1,36 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.amazonaws.hbase.model.HBaseWALEntry;
+
+/**
+ * Reads a record written by the matching WALEntryEncoder back into the HBaseWALEntry model, for
+ * consumers like the lambda handlers. The record must already be decompressed.
+ * Implementations are thread safe.
+ */
+public interface WALEntryDecoder {
+
+	/**
+	 * Decode one record.
+	 * @param in
+	 * @return
+	 * @throws IOException if the record is malformed.
+	 */
+	HBaseWALEntry decode(InputStream in) throws IOException;
+
+	/**
+	 * Decode one record.
+	 * @param data
+	 * @return
+	 * @throws IOException if the record is malformed.
+	 */
+	default HBaseWALEntry decode(byte[] data) throws IOException {
+		return decode(new ByteArrayInputStream(data));
+	}
+}
@@ -0,0 +1,25 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+
+/**
+ * Writes a WAL entry in one of the record formats pushed to the data sinks.
+ * Implementations are thread safe.
+ */
+public interface WALEntryEncoder {
+
+	/**
+	 * Encode the entry into out. out is closed once the entry is written, which also finishes
+	 * any compression stream it wraps.
+	 * @param entry
+	 * @param out
+	 * @throws IOException
+	 */
+	void encode(Entry entry, OutputStream out) throws IOException;
+}
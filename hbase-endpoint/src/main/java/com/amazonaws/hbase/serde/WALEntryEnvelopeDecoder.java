@@ -0,0 +1,142 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.hbase.model.HBaseWALEntry;
+
+/**
+ * Decodes records with or without RecordEnvelope. Records with an envelope are decompressed and
+ * decoded as their header says. Records without one, written before the envelope was enabled,
+ * go to the default decoder, through the default codec. Batch records hold several entries,
+ * read them with decodeAll(), which takes single entry records as well. Thread safe.
+ */
+public class WALEntryEnvelopeDecoder implements WALEntryDecoder {
+	private final WALEntryDecoder defaultDecoder;
+	private final CompressionCodec defaultCodec;
+	private final Map<Byte, CompressionCodec> codecs = new HashMap<Byte, CompressionCodec>();
+	// Filled once in the constructor, only read afterwards.
+	private final Map<RecordFormat, WALEntryDecoder> decoders = new EnumMap<RecordFormat, WALEntryDecoder>(
+			RecordFormat.class);
+
+	/**
+	 * @param defaultFormat format of the records without envelope.
+	 * @param defaultCompressed are the records without envelope gzip compressed.
+	 */
+	public WALEntryEnvelopeDecoder(RecordFormat defaultFormat, boolean defaultCompressed) {
+		this(defaultFormat, defaultCompressed ? CompressionCodecs.GZIP : CompressionCodecs.NONE);
+	}
+
+	/**
+	 * @param defaultFormat format of the records without envelope.
+	 * @param defaultCodec compression of the records without envelope.
+	 * @param customCodecs codecs other than the built-in ones the records may be compressed with.
+	 */
+	public WALEntryEnvelopeDecoder(RecordFormat defaultFormat, CompressionCodec defaultCodec,
+			CompressionCodec... customCodecs) {
+		for (RecordFormat format : RecordFormat.values()) {
+			decoders.put(format, format.newDecoder());
+		}
+		for (CompressionCodec codec : customCodecs) {
+			codecs.put(codec.getId(), codec);
+		}
+		this.defaultDecoder = decoders.get(defaultFormat);
+		this.defaultCodec = defaultCodec;
+	}
+
+	@Override
+	public HBaseWALEntry decode(byte[] data) throws IOException {
+		if (!RecordEnvelope.hasEnvelope(data, 0, data.length)) {
+			if (defaultCodec == CompressionCodecs.NONE) {
+				return defaultDecoder.decode(data);
+			}
+			return defaultDecoder.decode(defaultCodec.decompress(new ByteArrayInputStream(data)));
+		}
+		RecordEnvelope envelope = RecordEnvelope.readHeader(data, 0);
+		if (envelope.isBatch()) {
+			List<HBaseWALEntry> entries = decodeBatch(envelope, data);
+			if (entries.size() != 1) {
+				throw new IOException("Batch record of " + entries.size() + " entries, use decodeAll()");
+			}
+			return entries.get(0);
+		}
+		return decoders.get(envelope.getFormat()).decode(getCodec(envelope.getCompression()).decompress(payload(data)));
+	}
+
+	/**
+	 * Decode every entry of a record, the entries of a batch record in the order they were written.
+	 * @param data
+	 * @return one entry for records that aren't batches.
+	 * @throws IOException if the record is malformed.
+	 */
+	public List<HBaseWALEntry> decodeAll(byte[] data) throws IOException {
+		if (RecordEnvelope.hasEnvelope(data, 0, data.length)) {
+			RecordEnvelope envelope = RecordEnvelope.readHeader(data, 0);
+			if (envelope.isBatch()) {
+				return decodeBatch(envelope, data);
+			}
+		}
+		return Collections.singletonList(decode(data));
+	}
+
+	private List<HBaseWALEntry> decodeBatch(RecordEnvelope envelope, byte[] data) throws IOException {
+		byte[] payload = readFully(getCodec(envelope.getCompression()).decompress(payload(data)));
+		RecordBatch batch = RecordBatch.wrap(ByteBuffer.wrap(payload));
+		WALEntryDecoder decoder = decoders.get(envelope.getFormat());
+		List<HBaseWALEntry> entries = new ArrayList<HBaseWALEntry>(batch.size());
+		while (batch.hasNext()) {
+			ByteBuffer record = batch.next();
+			entries.add(decoder.decode(new ByteArrayInputStream(record.array(),
+					record.arrayOffset() + record.position(), record.remaining())));
+		}
+		return entries;
+	}
+
+	private static InputStream payload(byte[] data) {
+		return new ByteArrayInputStream(data, RecordEnvelope.HEADER_SIZE, data.length - RecordEnvelope.HEADER_SIZE);
+	}
+
+	/**
+	 * Reads the whole stream, the envelope is detected from its first bytes.
+	 */
+	@Override
+	public HBaseWALEntry decode(InputStream in) throws IOException {
+		return decode(readFully(in));
+	}
+
+	private CompressionCodec getCodec(byte id) throws IOException {
+		CompressionCodec codec = CompressionCodecs.forId(id);
+		if (codec == null) {
+			codec = codecs.get(id);
+		}
+		if (codec == null && id == CompressionCodecs.ZSTD_DICTIONARY_ID) {
+			throw new IOException("Record compressed with a zstd dictionary, a ZstdDictionaryCodec is needed");
+		}
+		if (codec == null) {
+			throw new IOException("Unknown record compression " + id);
+		}
+		return codec;
+	}
+
+	private static byte[] readFully(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int len;
+		while ((len = in.read(buffer)) > 0) {
+			out.write(buffer, 0, len);
+		}
+		return out.toByteArray();
+	}
+}
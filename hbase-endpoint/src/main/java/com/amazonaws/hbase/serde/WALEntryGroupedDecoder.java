@@ -0,0 +1,77 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.wal.WALEdit;
+
+import com.amazonaws.hbase.model.HBaseCell;
+import com.amazonaws.hbase.model.HBaseWALEdit;
+
+/**
+ * Reads records written by WALEntryGroupedEncoder. Cells of a group share the row and family
+ * arrays, the resulting HBaseWALEntry is otherwise the same as the binary decoder returns.
+ */
+public class WALEntryGroupedDecoder extends WALEntryBinaryDecoder {
+
+	@Override
+	protected byte getVersion() {
+		return WALEntryBinaryFormat.GROUPED_VERSION;
+	}
+
+	@Override
+	protected HBaseWALEdit readEdit(DataInputStream data) throws IOException {
+		HBaseWALEdit edit = new HBaseWALEdit();
+		edit.setReplay(data.readBoolean());
+		edit.setMETAFAMILY(WALEdit.METAFAMILY);
+		int count = WALEntryBinaryFormat.readLength(data);
+		List<HBaseCell> cells = new ArrayList<HBaseCell>(Math.min(count, 1024));
+		Set<byte[]> families = new TreeSet<byte[]>(Bytes.BYTES_COMPARATOR);
+		int rowCount = WALEntryBinaryFormat.readLength(data);
+		for (int r = 0; r < rowCount; r++) {
+			byte[] row = readBytes(data);
+			int familyCount = WALEntryBinaryFormat.readLength(data);
+			for (int f = 0; f < familyCount; f++) {
+				byte[] family = readBytes(data);
+				families.add(family);
+				readFamilyGroup(data, row, family, cells);
+			}
+		}
+		if (cells.size() != count) {
+			throw new IOException("Expected " + count + " cells, got " + cells.size());
+		}
+		edit.setCells(cells);
+		edit.setFamilies(families);
+		return edit;
+	}
+
+	private void readFamilyGroup(DataInputStream data, byte[] row, byte[] family, List<HBaseCell> cells)
+			throws IOException {
+		int count = WALEntryBinaryFormat.readLength(data);
+		int start = cells.size();
+		for (int i = 0; i < count; i++) {
+			HBaseCell cell = new HBaseCell();
+			cell.setRow(row);
+			cell.setFamily(family);
+			cell.setQualifier(readBytes(data));
+			cells.add(cell);
+		}
+		for (int i = 0; i < count; i++) {
+			cells.get(start + i).setTimeStamp(data.readLong());
+		}
+		for (int i = 0; i < count; i++) {
+			cells.get(start + i).setType(WALEntryBinaryFormat.toType(data.readByte()).toString());
+		}
+		for (int i = 0; i < count; i++) {
+			cells.get(start + i).setValue(readBytes(data));
+		}
+	}
+}
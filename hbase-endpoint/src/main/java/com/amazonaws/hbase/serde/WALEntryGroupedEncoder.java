@@ -0,0 +1,94 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.wal.WALEdit;
+
+/**
+ * Writes WAL entries in the grouped binary layout described in WALEntryBinaryFormat. Row and
+ * family are written once per run of cells sharing them, instead of once per cell, which is most
+ * of the record for wide rows.
+ */
+public class WALEntryGroupedEncoder extends WALEntryBinaryEncoder {
+
+	@Override
+	protected byte getVersion() {
+		return WALEntryBinaryFormat.GROUPED_VERSION;
+	}
+
+	@Override
+	protected void writeEdit(DataOutputStream data, WALEdit edit) throws IOException {
+		data.writeBoolean(edit.isReplay());
+		List<Cell> cells = edit.getCells();
+		WALEntryBinaryFormat.writeVarInt(data, cells.size());
+		int rowCount = 0;
+		for (int start = 0; start < cells.size(); start = rowEnd(cells, start)) {
+			rowCount++;
+		}
+		WALEntryBinaryFormat.writeVarInt(data, rowCount);
+		for (int start = 0; start < cells.size();) {
+			int end = rowEnd(cells, start);
+			writeRowGroup(data, cells, start, end);
+			start = end;
+		}
+	}
+
+	private void writeRowGroup(DataOutputStream data, List<Cell> cells, int start, int end) throws IOException {
+		writeRow(data, cells.get(start));
+		int familyCount = 0;
+		for (int i = start; i < end; i = familyEnd(cells, i, end)) {
+			familyCount++;
+		}
+		WALEntryBinaryFormat.writeVarInt(data, familyCount);
+		for (int i = start; i < end;) {
+			int familyEnd = familyEnd(cells, i, end);
+			writeFamilyGroup(data, cells, i, familyEnd);
+			i = familyEnd;
+		}
+	}
+
+	private void writeFamilyGroup(DataOutputStream data, List<Cell> cells, int start, int end)
+			throws IOException {
+		writeFamily(data, cells.get(start));
+		WALEntryBinaryFormat.writeVarInt(data, end - start);
+		for (int i = start; i < end; i++) {
+			writeQualifier(data, cells.get(i));
+		}
+		for (int i = start; i < end; i++) {
+			data.writeLong(cells.get(i).getTimestamp());
+		}
+		for (int i = start; i < end; i++) {
+			data.writeByte(cells.get(i).getType().getCode());
+		}
+		for (int i = start; i < end; i++) {
+			writeValue(data, cells.get(i));
+		}
+	}
+
+	// Index of the first cell after start with another row, or cells.size().
+	private static int rowEnd(List<Cell> cells, int start) {
+		Cell first = cells.get(start);
+		int i = start + 1;
+		while (i < cells.size() && CellUtil.matchingRows(first, cells.get(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	// Index of the first cell after start with another family, or end.
+	private static int familyEnd(List<Cell> cells, int start, int end) {
+		Cell first = cells.get(start);
+		int i = start + 1;
+		while (i < end && CellUtil.matchingFamily(first, cells.get(i))) {
+			i++;
+		}
+		return i;
+	}
+}
@@ -0,0 +1,48 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.amazonaws.hbase.model.HBaseWALEntry;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads the json records through the HBase*Deserializer classes. With a Smile or CBOR factory
+ * it reads those formats the same way.
+ */
+public class WALEntryJsonDecoder implements WALEntryDecoder {
+	private final ObjectMapper objectMapper;
+
+	public WALEntryJsonDecoder() {
+		this(new JsonFactory());
+	}
+
+	/**
+	 * Decoder of the json data model in another Jackson data format, like Smile or CBOR.
+	 * @param factory
+	 */
+	public WALEntryJsonDecoder(JsonFactory factory) {
+		this(new ObjectMapper(factory));
+		objectMapper.configure(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES, false);
+		objectMapper.configure(DeserializationFeature.FAIL_ON_NUMBERS_FOR_ENUMS, false);
+	}
+
+	public WALEntryJsonDecoder(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	public HBaseWALEntry decode(InputStream in) throws IOException {
+		return objectMapper.readValue(in, HBaseWALEntry.class);
+	}
+
+	@Override
+	public HBaseWALEntry decode(byte[] data) throws IOException {
+		return objectMapper.readValue(data, HBaseWALEntry.class);
+	}
+}
@@ -0,0 +1,196 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.apache.hadoop.hbase.ByteBufferExtendedCell;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.io.ByteBufferInputStream;
+import org.apache.hadoop.hbase.regionserver.MultiVersionConcurrencyControl.WriteEntry;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+import org.apache.hadoop.hbase.wal.WALEdit;
+import org.apache.hadoop.hbase.wal.WALKeyImpl;
+
+import com.amazonaws.hbase.serde.WALEntryProjection.Field;
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes a WAL entry as json straight from the WAL.Entry and its cells, without building the
+ * HBaseWALEntry model first. The output is byte for byte what the ObjectMapper produces for
+ * an HBaseWALEntry, field order included, so HBaseWALEntryDeserializer reads it unchanged.
+ * Row, family, qualifier and value are base64 encoded directly from the cell's backing array,
+ * or from its ByteBuffers for off-heap cells. Instances are thread safe.
+ *
+ * Given an ObjectMapper of another Jackson data format, like Smile or CBOR, it writes the same
+ * data model in that format, where byte arrays are raw binary instead of base64.
+ *
+ * The optional key and edit fields are left out of the record unless they are part of the
+ * WALEntryProjection of the entry's table.
+ */
+public class WALEntryJsonEncoder implements WALEntryEncoder {
+	private final JsonFactory factory;
+	private final Base64Variant base64;
+	private final Function<TableName, WALEntryProjection> projections;
+
+	public WALEntryJsonEncoder(ObjectMapper objectMapper) {
+		this(objectMapper, tableName -> WALEntryProjection.ALL);
+	}
+
+	/**
+	 * @param objectMapper
+	 * @param projections the projection of each table, called for every entry.
+	 */
+	public WALEntryJsonEncoder(ObjectMapper objectMapper, Function<TableName, WALEntryProjection> projections) {
+		this.factory = objectMapper.getFactory();
+		this.base64 = objectMapper.getSerializationConfig().getBase64Variant();
+		this.projections = projections;
+	}
+
+	@Override
+	public void encode(Entry entry, OutputStream out) throws IOException {
+		try (JsonGenerator gen = factory.createGenerator(out, JsonEncoding.UTF8)) {
+			WALEntryProjection projection = projections.apply(entry.getKey().getTableName());
+			gen.writeStartObject();
+			gen.writeFieldName("key");
+			writeKey(gen, entry.getKey(), projection);
+			gen.writeFieldName("edit");
+			writeEdit(gen, entry.getEdit(), projection);
+			gen.writeEndObject();
+		}
+	}
+
+	private void writeKey(JsonGenerator gen, WALKeyImpl key, WALEntryProjection projection) throws IOException {
+		gen.writeStartObject();
+		gen.writeNumberField("writeTime", key.getWriteTime());
+		gen.writeNumberField("sequenceId", key.getSequenceId());
+		gen.writeStringField("tablename", key.getTableName().getNameAsString());
+		if (projection.includes(Field.NONCE)) {
+			gen.writeNumberField("nonce", key.getNonce());
+		}
+		if (projection.includes(Field.NONCE_GROUP)) {
+			gen.writeNumberField("nonceGroup", key.getNonceGroup());
+		}
+		if (projection.includes(Field.ORIG_LOG_SEQ_NUM)) {
+			gen.writeNumberField("origLogSeqNum", key.getOrigLogSeqNum());
+		}
+		if (projection.includes(Field.ENCODED_REGION_NAME)) {
+			gen.writeFieldName("encodedRegionName");
+			writeBinary(gen, key.getEncodedRegionName());
+		}
+		if (projection.includes(Field.WRITE_ENTRY)) {
+			writeWriteEntry(gen, key.getWriteEntry());
+		}
+		gen.writeEndObject();
+	}
+
+	private void writeWriteEntry(JsonGenerator gen, WriteEntry writeEntry) throws IOException {
+		if (writeEntry == null) {
+			gen.writeNullField("writeEntry");
+			return;
+		}
+		gen.writeObjectFieldStart("writeEntry");
+		gen.writeNumberField("writeNumber", writeEntry.getWriteNumber());
+		gen.writeEndObject();
+	}
+
+	private void writeEdit(JsonGenerator gen, WALEdit edit, WALEntryProjection projection) throws IOException {
+		gen.writeStartObject();
+		gen.writeArrayFieldStart("cells");
+		List<Cell> cells = edit.getCells();
+		for (int i = 0; i < cells.size(); i++) {
+			writeCell(gen, cells.get(i));
+		}
+		gen.writeEndArray();
+		if (projection.includes(Field.FAMILIES)) {
+			writeFamilies(gen, edit.getFamilies());
+		}
+		gen.writeBooleanField("replay", edit.isReplay());
+		if (projection.includes(Field.METAFAMILY)) {
+			gen.writeFieldName("metafamily");
+			writeBinary(gen, WALEdit.METAFAMILY);
+		}
+		gen.writeEndObject();
+	}
+
+	private void writeFamilies(JsonGenerator gen, Set<byte[]> families) throws IOException {
+		if (families == null) {
+			gen.writeNullField("families");
+			return;
+		}
+		gen.writeArrayFieldStart("families");
+		for (byte[] family : families) {
+			writeBinary(gen, family);
+		}
+		gen.writeEndArray();
+	}
+
+	private void writeCell(JsonGenerator gen, Cell cell) throws IOException {
+		if (cell instanceof ByteBufferExtendedCell) {
+			writeByteBufferCell(gen, (ByteBufferExtendedCell) cell);
+			return;
+		}
+		gen.writeStartObject();
+		gen.writeFieldName("qualifier");
+		gen.writeBinary(base64, cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength());
+		gen.writeFieldName("value");
+		gen.writeBinary(base64, cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+		gen.writeStringField("type", cell.getType().toString());
+		gen.writeFieldName("family");
+		gen.writeBinary(base64, cell.getFamilyArray(), cell.getFamilyOffset(), cell.getFamilyLength());
+		gen.writeNumberField("timeStamp", cell.getTimestamp());
+		gen.writeFieldName("row");
+		gen.writeBinary(base64, cell.getRowArray(), cell.getRowOffset(), cell.getRowLength());
+		gen.writeEndObject();
+	}
+
+	// Off-heap cells, the get*Array() methods would copy the cell to the heap first.
+	private void writeByteBufferCell(JsonGenerator gen, ByteBufferExtendedCell cell) throws IOException {
+		gen.writeStartObject();
+		gen.writeFieldName("qualifier");
+		writeBinary(gen, cell.getQualifierByteBuffer(), cell.getQualifierPosition(), cell.getQualifierLength());
+		gen.writeFieldName("value");
+		writeBinary(gen, cell.getValueByteBuffer(), cell.getValuePosition(), cell.getValueLength());
+		gen.writeStringField("type", cell.getType().toString());
+		gen.writeFieldName("family");
+		writeBinary(gen, cell.getFamilyByteBuffer(), cell.getFamilyPosition(), cell.getFamilyLength());
+		gen.writeNumberField("timeStamp", cell.getTimestamp());
+		gen.writeFieldName("row");
+		writeBinary(gen, cell.getRowByteBuffer(), cell.getRowPosition(), cell.getRowLength());
+		gen.writeEndObject();
+	}
+
+	/**
+	 * Base64 encode length bytes of the buffer from position, without moving the buffer's own
+	 * position. Direct buffers are streamed through the generator's internal buffer.
+	 */
+	private void writeBinary(JsonGenerator gen, ByteBuffer buffer, int position, int length) throws IOException {
+		if (buffer.hasArray()) {
+			gen.writeBinary(base64, buffer.array(), buffer.arrayOffset() + position, length);
+			return;
+		}
+		ByteBuffer slice = buffer.duplicate();
+		slice.limit(position + length);
+		slice.position(position);
+		gen.writeBinary(base64, new ByteBufferInputStream(slice), length);
+	}
+
+	private void writeBinary(JsonGenerator gen, byte[] bytes) throws IOException {
+		if (bytes == null) {
+			gen.writeNull();
+		} else {
+			gen.writeBinary(base64, bytes, 0, bytes.length);
+		}
+	}
+}
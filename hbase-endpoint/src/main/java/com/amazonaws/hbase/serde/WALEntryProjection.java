@@ -0,0 +1,93 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The optional WAL key and edit fields written to a record. writeTime, sequenceId, tablename,
+ * cells and replay are always written, the fields below only if they are part of the projection.
+ * Decoders leave the fields that weren't written null.
+ */
+public final class WALEntryProjection {
+
+	public enum Field {
+		NONCE("nonce"),
+		NONCE_GROUP("nonceGroup"),
+		ORIG_LOG_SEQ_NUM("origLogSeqNum"),
+		ENCODED_REGION_NAME("encodedRegionName"),
+		WRITE_ENTRY("writeEntry"),
+		FAMILIES("families"),
+		METAFAMILY("metafamily");
+
+		private final String fieldName;
+
+		Field(String fieldName) {
+			this.fieldName = fieldName;
+		}
+
+		/**
+		 * @return the name of the field in the json record.
+		 */
+		public String getFieldName() {
+			return fieldName;
+		}
+	}
+
+	/** Every field, the records are the same as without projection. */
+	public static final WALEntryProjection ALL = new WALEntryProjection(EnumSet.allOf(Field.class));
+	/** Only the fields that are always written. */
+	public static final WALEntryProjection NONE = new WALEntryProjection(EnumSet.noneOf(Field.class));
+
+	private final Set<Field> fields;
+
+	private WALEntryProjection(Set<Field> fields) {
+		this.fields = fields;
+	}
+
+	public boolean includes(Field field) {
+		return fields.contains(field);
+	}
+
+	/**
+	 * Parses a comma separated list of json field names, like "nonce,writeEntry". "all" selects
+	 * every field, "none" or an empty list none of them.
+	 * @param value
+	 * @return the projection, ALL if value is null.
+	 * @throws IllegalArgumentException on an unknown field name.
+	 */
+	public static WALEntryProjection parse(String value) {
+		if (value == null) {
+			return ALL;
+		}
+		EnumSet<Field> fields = EnumSet.noneOf(Field.class);
+		for (String name : value.split(",")) {
+			name = name.trim();
+			if (name.isEmpty() || name.equalsIgnoreCase("none")) {
+				continue;
+			}
+			if (name.equalsIgnoreCase("all")) {
+				return ALL;
+			}
+			fields.add(toField(name));
+		}
+		return fields.isEmpty() ? NONE : new WALEntryProjection(fields);
+	}
+
+	private static Field toField(String name) {
+		for (Field field : Field.values()) {
+			if (field.fieldName.equalsIgnoreCase(name) || field.name().equals(name.toUpperCase(Locale.ROOT))) {
+				return field;
+			}
+		}
+		throw new IllegalArgumentException("Unknown WAL entry field " + name);
+	}
+
+	@Override
+	public String toString() {
+		return fields.toString();
+	}
+}
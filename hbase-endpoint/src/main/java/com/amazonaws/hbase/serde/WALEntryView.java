@@ -0,0 +1,196 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.apache.hadoop.hbase.util.ByteBufferUtils;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Read-only view of a record in the binary or grouped format, for consumers that only look at a
+ * few fields or cells. Key fields are read from the buffer when asked for and cells() walks the
+ * cells in place, so filtering or routing a record doesn't allocate the HBaseWALEntry model.
+ * A view, and its cursor, can be reused for the next record with wrap(). Not thread safe.
+ *
+ * <pre>
+ * WALEntryView view = new WALEntryView();
+ * view.wrap(ByteBuffer.wrap(record));
+ * for (WALCellCursor cells = view.cells(); cells.next();) {
+ *     if (cells.matchingQualifier(SPEED)) { ... }
+ * }
+ * </pre>
+ */
+public final class WALEntryView {
+	// Offsets of the fixed size key fields, after the version byte.
+	private static final int WRITE_TIME = 1;
+	private static final int SEQUENCE_ID = WRITE_TIME + Bytes.SIZEOF_LONG;
+	private static final int NONCE = SEQUENCE_ID + Bytes.SIZEOF_LONG;
+	private static final int NONCE_GROUP = NONCE + Bytes.SIZEOF_LONG;
+	private static final int ORIG_LOG_SEQ_NUM = NONCE_GROUP + Bytes.SIZEOF_LONG;
+	private static final int TABLE_NAME = ORIG_LOG_SEQ_NUM + Bytes.SIZEOF_LONG;
+
+	private final WALCellCursor binaryCursor = new WALCellCursor.BinaryCellCursor();
+	private final WALCellCursor groupedCursor = new WALCellCursor.GroupedCellCursor();
+
+	private ByteBuffer buffer;
+	private int base;
+	private byte version;
+	private int tableNamePosition;
+	private int tableNameLength;
+	private int encodedRegionNamePosition;
+	private int encodedRegionNameLength;
+	private int writeEntryPosition;
+	private int editPosition;
+
+	/**
+	 * Points the view to a record, from the buffer's position to its limit. The buffer isn't copied
+	 * and must not change while the view is used.
+	 * @param record
+	 * @return this view
+	 * @throws IOException if the record isn't in the binary or grouped format.
+	 */
+	public WALEntryView wrap(ByteBuffer record) throws IOException {
+		ByteBuffer buffer = record.order() == ByteOrder.BIG_ENDIAN ? record
+				: record.duplicate().order(ByteOrder.BIG_ENDIAN);
+		int base = buffer.position();
+		byte version = buffer.get(base);
+		if (version != WALEntryBinaryFormat.VERSION && version != WALEntryBinaryFormat.GROUPED_VERSION) {
+			throw new IOException("Unsupported binary record version " + version);
+		}
+		try {
+			int position = base + TABLE_NAME;
+			int tableNameLength = WALEntryBinaryFormat.readVarInt(buffer, position);
+			int tableNamePosition = WALCellCursor.skipLength(buffer, position);
+			position = tableNamePosition + tableNameLength;
+			// Length + 1 of the encoded region name, 0 if there is none.
+			int encodedRegionNameLength = WALEntryBinaryFormat.readVarInt(buffer, position) - 1;
+			int encodedRegionNamePosition = WALCellCursor.skipLength(buffer, position);
+			position = encodedRegionNamePosition + Math.max(0, encodedRegionNameLength);
+			int writeEntryPosition = position;
+			position += buffer.get(position) == 0 ? 1 : 1 + Bytes.SIZEOF_LONG;
+			if (position >= buffer.limit()) {
+				throw new IOException("Truncated binary record");
+			}
+			this.tableNameLength = tableNameLength;
+			this.tableNamePosition = tableNamePosition;
+			this.encodedRegionNameLength = encodedRegionNameLength;
+			this.encodedRegionNamePosition = encodedRegionNamePosition;
+			this.writeEntryPosition = writeEntryPosition;
+			this.editPosition = position;
+		} catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+			throw new IOException("Malformed binary record", e);
+		}
+		this.buffer = buffer;
+		this.base = base;
+		this.version = version;
+		return this;
+	}
+
+	/**
+	 * @return true for a record of the grouped format.
+	 */
+	public boolean isGrouped() {
+		return version == WALEntryBinaryFormat.GROUPED_VERSION;
+	}
+
+	public long getWriteTime() {
+		return buffer.getLong(base + WRITE_TIME);
+	}
+
+	public long getSequenceId() {
+		return buffer.getLong(base + SEQUENCE_ID);
+	}
+
+	public long getNonce() {
+		return buffer.getLong(base + NONCE);
+	}
+
+	public long getNonceGroup() {
+		return buffer.getLong(base + NONCE_GROUP);
+	}
+
+	public long getOrigLogSeqNum() {
+		return buffer.getLong(base + ORIG_LOG_SEQ_NUM);
+	}
+
+	/**
+	 * The record the positions are relative to. Read it with absolute gets only.
+	 * @return
+	 */
+	public ByteBuffer getBuffer() {
+		return buffer;
+	}
+
+	public int getTableNamePosition() {
+		return tableNamePosition;
+	}
+
+	public int getTableNameLength() {
+		return tableNameLength;
+	}
+
+	/**
+	 * Compares the table name in place.
+	 * @param tableName the name as in TableName.getName(), "ns:table" or "table" in the default namespace.
+	 * @return
+	 */
+	public boolean matchingTableName(byte[] tableName) {
+		return ByteBufferUtils.equals(buffer, tableNamePosition, tableNameLength, tableName, 0, tableName.length);
+	}
+
+	public String getTableNameAsString() {
+		byte[] name = new byte[tableNameLength];
+		ByteBufferUtils.copyFromBufferToArray(name, buffer, tableNamePosition, 0, tableNameLength);
+		return Bytes.toString(name);
+	}
+
+	/**
+	 * @return the position of the encoded region name, only valid if its length isn't -1.
+	 */
+	public int getEncodedRegionNamePosition() {
+		return encodedRegionNamePosition;
+	}
+
+	/**
+	 * @return the length of the encoded region name, -1 if the key had none.
+	 */
+	public int getEncodedRegionNameLength() {
+		return encodedRegionNameLength;
+	}
+
+	public boolean hasWriteEntry() {
+		return buffer.get(writeEntryPosition) != 0;
+	}
+
+	/**
+	 * @return the MVCC write number, only valid if hasWriteEntry().
+	 */
+	public long getWriteNumber() {
+		return buffer.getLong(writeEntryPosition + 1);
+	}
+
+	public boolean isReplay() {
+		return buffer.get(editPosition) != 0;
+	}
+
+	public int getCellCount() {
+		return WALEntryBinaryFormat.readVarInt(buffer, editPosition + 1);
+	}
+
+	/**
+	 * Cursor over the cells of the record, positioned before the first one. The view has a single
+	 * cursor, calling cells() again rewinds it.
+	 * @return
+	 */
+	public WALCellCursor cells() {
+		WALCellCursor cursor = isGrouped() ? groupedCursor : binaryCursor;
+		int countPosition = editPosition + 1;
+		cursor.reset(buffer, WALCellCursor.skipLength(buffer, countPosition),
+				WALEntryBinaryFormat.readVarInt(buffer, countPosition));
+		return cursor;
+	}
+}
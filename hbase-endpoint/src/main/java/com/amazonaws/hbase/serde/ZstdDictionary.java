@@ -0,0 +1,113 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.github.luben.zstd.ZstdException;
+
+/**
+ * A zstd dictionary trained from sample records of a table. The id is the one zstd writes into
+ * the dictionary, records compressed with it carry the id so consumers find the dictionary in a
+ * ZstdDictionaryStore. A table gets a new dictionary, with a new id, each time it's retrained.
+ * The digested compression and decompression dictionaries are built on first use and shared
+ * by all threads.
+ */
+public final class ZstdDictionary {
+	/** Level zstd compresses with when none is given */
+	private static final int ZSTD_DEFAULT_LEVEL = 3;
+
+	private final int id;
+	private final byte[] bytes;
+	private final int level;
+	private volatile ZstdDictCompress compressDict;
+	private volatile ZstdDictDecompress decompressDict;
+
+	/**
+	 * @param bytes dictionary as trained by zstd, not copied.
+	 * @param level compression level, CompressionCodecs.DEFAULT_LEVEL for the zstd default.
+	 * @throws IOException if the bytes are not a zstd dictionary.
+	 */
+	public ZstdDictionary(byte[] bytes, int level) throws IOException {
+		long id = Zstd.getDictIdFromDict(bytes);
+		if (id == 0) {
+			throw new IOException("Not a zstd dictionary");
+		}
+		this.id = (int) id;
+		this.bytes = bytes;
+		this.level = level == CompressionCodecs.DEFAULT_LEVEL ? ZSTD_DEFAULT_LEVEL : level;
+	}
+
+	/**
+	 * Train a dictionary.
+	 * @param trainer holding the samples
+	 * @param level compression level the dictionary is used with
+	 * @return
+	 * @throws IOException if zstd could not train a dictionary, like when there are too few samples.
+	 */
+	public static ZstdDictionary train(ZstdDictTrainer trainer, int level) throws IOException {
+		byte[] bytes;
+		try {
+			bytes = trainer.trainSamples();
+		} catch (ZstdException e) {
+			throw new IOException("Unable to train zstd dictionary: " + e.getMessage(), e);
+		}
+		return new ZstdDictionary(bytes, level);
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public byte[] getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return the name of the dictionary file in a ZstdDictionaryStore.
+	 */
+	public String getFileName() {
+		return getFileName(id);
+	}
+
+	public static String getFileName(int id) {
+		return String.format(Locale.ROOT, "%08x.dict", id);
+	}
+
+	ZstdDictCompress getCompressDict() {
+		ZstdDictCompress dict = compressDict;
+		if (dict == null) {
+			synchronized (this) {
+				if (compressDict == null) {
+					compressDict = new ZstdDictCompress(bytes, level);
+				}
+				dict = compressDict;
+			}
+		}
+		return dict;
+	}
+
+	ZstdDictDecompress getDecompressDict() {
+		ZstdDictDecompress dict = decompressDict;
+		if (dict == null) {
+			synchronized (this) {
+				if (decompressDict == null) {
+					decompressDict = new ZstdDictDecompress(bytes);
+				}
+				dict = decompressDict;
+			}
+		}
+		return dict;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT, "%08x", id) + " (" + bytes.length + " bytes)";
+	}
+}
@@ -0,0 +1,93 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+/**
+ * zstd compression with a dictionary trained for the table, which compresses small records
+ * much better than plain zstd since most of their field names, families and qualifiers are in
+ * the dictionary already. The compressed data names the dictionary it needs:
+ *
+ * <pre>
+ * payload := dictionaryId:i32 zstd-frame
+ * </pre>
+ *
+ * Decompression looks the dictionary up in a ZstdDictionaryStore. Consumers of records that may
+ * use dictionaries pass an instance without dictionary to WALEntryEnvelopeDecoder.
+ */
+public class ZstdDictionaryCodec implements CompressionCodec {
+	private final ZstdDictionary dictionary;
+	private final ZstdDictionaryStore store;
+	private final PooledCompressor.Pool compressors;
+
+	/**
+	 * Codec that only decompresses.
+	 * @param store where the dictionaries named by the records are loaded from.
+	 */
+	public ZstdDictionaryCodec(ZstdDictionaryStore store) {
+		this(null, store);
+	}
+
+	/**
+	 * @param dictionary dictionary records are compressed with, null if the codec only decompresses.
+	 * @param store where the dictionaries named by the records are loaded from.
+	 */
+	public ZstdDictionaryCodec(ZstdDictionary dictionary, ZstdDictionaryStore store) {
+		this.dictionary = dictionary;
+		this.store = store;
+		this.compressors = dictionary == null ? null : new PooledCompressor.Pool(PooledCompressor.Pool.DEFAULT_SIZE,
+				pool -> new CompressionCodecs.ZstdCompressor(pool, CompressionCodecs.DEFAULT_LEVEL,
+						dictionary.getCompressDict()));
+	}
+
+	@Override
+	public byte getId() {
+		return CompressionCodecs.ZSTD_DICTIONARY_ID;
+	}
+
+	@Override
+	public String getName() {
+		return "zstd-dictionary";
+	}
+
+	public ZstdDictionary getDictionary() {
+		return dictionary;
+	}
+
+	@Override
+	public OutputStream compress(OutputStream out) throws IOException {
+		if (dictionary == null) {
+			throw new IllegalStateException("No dictionary to compress with");
+		}
+		new DataOutputStream(out).writeInt(dictionary.getId());
+		return compressors.compress(out);
+	}
+
+	@Override
+	public boolean isBuffered() {
+		return true;
+	}
+
+	@Override
+	public InputStream decompress(InputStream in) throws IOException {
+		int id = new DataInputStream(in).readInt();
+		ZstdDictionary dict = dictionary != null && dictionary.getId() == id ? dictionary : store.get(id);
+		if (dict == null) {
+			throw new IOException("Unknown zstd dictionary " + ZstdDictionary.getFileName(id) + " in " + store.getDir());
+		}
+		return new ZstdInputStream(in).setDict(dict.getDecompressDict());
+	}
+
+	@Override
+	public String toString() {
+		return getName() + "/" + dictionary;
+	}
+}
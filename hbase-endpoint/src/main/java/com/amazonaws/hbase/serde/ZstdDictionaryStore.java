@@ -0,0 +1,121 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Directory the endpoint publishes its zstd dictionaries to and consumers load them from, one
+ * file per dictionary named after its id. Any Hadoop file system works, a local path or
+ * hdfs:// and s3a:// URIs. Dictionaries are never modified or deleted by the endpoint, records
+ * compressed with an old dictionary stay readable. Loaded dictionaries are cached. Thread safe.
+ */
+public class ZstdDictionaryStore {
+	private static final Logger LOG = LoggerFactory.getLogger(ZstdDictionaryStore.class);
+
+	private final FileSystem fs;
+	private final Path dir;
+	private final int level;
+	private final ConcurrentMap<Integer, ZstdDictionary> dictionaries = new ConcurrentHashMap<Integer, ZstdDictionary>();
+
+	/**
+	 * @param dir directory of the dictionary files
+	 * @param conf Hadoop configuration of the file system
+	 * @param level level the published dictionaries compress with, consumers don't need it.
+	 * @throws IOException if the file system could not be initialized.
+	 */
+	public ZstdDictionaryStore(String dir, Configuration conf, int level) throws IOException {
+		this.dir = new Path(dir);
+		this.fs = this.dir.getFileSystem(conf);
+		this.level = level;
+	}
+
+	/**
+	 * Store the dictionary, written to a temporary file first so consumers never see part of it.
+	 * A dictionary already published with the same bytes, by another region server for instance,
+	 * is left as it is.
+	 * @param dictionary
+	 * @throws IOException if the dictionary could not be written, or another dictionary was
+	 * published with the same id.
+	 */
+	public void publish(ZstdDictionary dictionary) throws IOException {
+		Path path = new Path(dir, dictionary.getFileName());
+		if (fs.exists(path)) {
+			checkPublished(dictionary, path);
+			return;
+		}
+		Path tmp = new Path(dir, "." + dictionary.getFileName() + ".tmp");
+		try (OutputStream out = fs.create(tmp, true)) {
+			out.write(dictionary.getBytes());
+		}
+		if (!fs.rename(tmp, path)) {
+			fs.delete(tmp, false);
+			if (!fs.exists(path)) {
+				throw new IOException("Unable to rename " + tmp + " to " + path);
+			}
+			checkPublished(dictionary, path);
+			return;
+		}
+		dictionaries.put(dictionary.getId(), dictionary);
+	}
+
+	private void checkPublished(ZstdDictionary dictionary, Path path) throws IOException {
+		if (!Arrays.equals(dictionary.getBytes(), read(path))) {
+			throw new IOException(path + " already holds another dictionary with id " + dictionary.getId());
+		}
+		LOG.info("Zstd dictionary {} is already published to {}", dictionary, path);
+		dictionaries.putIfAbsent(dictionary.getId(), dictionary);
+	}
+
+	/**
+	 * Get a dictionary, loading it from the directory the first time.
+	 * @param id
+	 * @return the dictionary, null if there is no such dictionary.
+	 * @throws IOException if the dictionary could not be read.
+	 */
+	public ZstdDictionary get(int id) throws IOException {
+		ZstdDictionary dictionary = dictionaries.get(id);
+		if (dictionary != null) {
+			return dictionary;
+		}
+		Path path = new Path(dir, ZstdDictionary.getFileName(id));
+		byte[] bytes;
+		try {
+			bytes = read(path);
+		} catch (FileNotFoundException e) {
+			return null;
+		}
+		dictionary = new ZstdDictionary(bytes, level);
+		if (dictionary.getId() != id) {
+			throw new IOException(path + " holds dictionary " + dictionary);
+		}
+		ZstdDictionary existing = dictionaries.putIfAbsent(id, dictionary);
+		return existing != null ? existing : dictionary;
+	}
+
+	private byte[] read(Path path) throws IOException {
+		try (InputStream in = fs.open(path)) {
+			byte[] bytes = new byte[(int) fs.getFileStatus(path).getLen()];
+			IOUtils.readFully(in, bytes, 0, bytes.length);
+			return bytes;
+		}
+	}
+
+	public Path getDir() {
+		return dir;
+	}
+}
@@ -0,0 +1,90 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+import org.apache.hadoop.hbase.wal.WALEdit;
+import org.apache.hadoop.hbase.wal.WALKeyImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.hbase.model.HBaseWALEntry;
+import com.amazonaws.hbase.serde.CompressionCodecs;
+import com.amazonaws.hbase.serde.RecordEnvelope;
+import com.amazonaws.hbase.serde.RecordFormat;
+import com.amazonaws.hbase.serde.WALEntryEnvelopeDecoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class AdaptiveCompressionTest {
+	private static final TableName TEXT = TableName.valueOf("text");
+	private static final TableName BLOBS = TableName.valueOf("blobs");
+
+	private AdaptiveCompression adaptive;
+	private WALEntrySerializer serializer;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		adaptive = new AdaptiveCompression(256, 0.9, 10);
+		serializer = new WALEntrySerializer(RecordFormat.BINARY.newEncoder(), tableName -> CompressionCodecs.ZSTD,
+				new ByteArrayPool(4), RecordFormat.BINARY, adaptive);
+		random = new Random(42);
+	}
+
+	@Test
+	public void testSmallRecord() throws Exception {
+		Entry entry = newEntry(TEXT, Bytes.toBytes("v"));
+		byte[] record = toBytes(serializer.serialize(entry));
+
+		assertEquals(CompressionCodecs.NONE_ID, RecordEnvelope.readHeader(record, 0).getCompression());
+		assertEquals(1, adaptive.getSkippedSmall());
+		ObjectMapper objectMapper = new ObjectMapper();
+		assertEquals(objectMapper.writeValueAsString(new HBaseWALEntry(entry)), objectMapper.writeValueAsString(
+				new WALEntryEnvelopeDecoder(RecordFormat.JSON, false).decode(record)));
+	}
+
+	@Test
+	public void testRatio() throws Exception {
+		byte[] text = Bytes.toBytes(new String(new char[1000]).replace('\0', 'a'));
+		for (int i = 0; i < 20; i++) {
+			byte[] record = toBytes(serializer.serialize(newEntry(TEXT, text)));
+			assertEquals(CompressionCodecs.ZSTD_ID, RecordEnvelope.readHeader(record, 0).getCompression());
+		}
+		assertTrue(adaptive.getRatio(TEXT) < 0.1);
+
+		int compressed = 0;
+		for (int i = 0; i < 100; i++) {
+			byte[] blob = new byte[1000];
+			random.nextBytes(blob);
+			byte[] record = toBytes(serializer.serialize(newEntry(BLOBS, blob)));
+			if (RecordEnvelope.readHeader(record, 0).getCompression() == CompressionCodecs.ZSTD_ID) {
+				compressed++;
+			}
+		}
+		// The first record finds out, then one in ten probes the ratio.
+		assertEquals(1 + 99 / 10, compressed);
+		assertTrue(adaptive.getRatio(BLOBS) > 0.9);
+	}
+
+	private static Entry newEntry(TableName tableName, byte[] value) {
+		WALEdit edit = new WALEdit();
+		edit.add(new KeyValue(Bytes.toBytes("row"), Bytes.toBytes("cf"), Bytes.toBytes("q"), 1000L, value));
+		return new Entry(new WALKeyImpl(Bytes.toBytes("region"), tableName, 1000L), edit);
+	}
+
+	private static byte[] toBytes(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+}
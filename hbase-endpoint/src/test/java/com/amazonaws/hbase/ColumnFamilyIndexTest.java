@@ -0,0 +1,49 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.hadoop.hbase.ByteBufferKeyValue;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ColumnFamilyIndexTest {
+	private ColumnFamilyIndex index;
+
+	@Before
+	public void setUp() {
+		index = new ColumnFamilyIndex(Arrays.asList(
+				Bytes.toBytes("cf1"), Bytes.toBytes("cf2"), Bytes.toBytes("cf1")));
+	}
+
+	@Test
+	public void testContainsBytes() {
+		assertEquals(2, index.size());
+		assertTrue(index.contains(Bytes.toBytes("cf1")));
+		assertTrue(index.contains(Bytes.toBytes("cf2")));
+		assertFalse(index.contains(Bytes.toBytes("cf3")));
+	}
+
+	@Test
+	public void testContainsCell() {
+		KeyValue present = new KeyValue(Bytes.toBytes("row"), Bytes.toBytes("cf2"), Bytes.toBytes("q"),
+				Bytes.toBytes("v"));
+		KeyValue missing = new KeyValue(Bytes.toBytes("row"), Bytes.toBytes("cf3"), Bytes.toBytes("q"),
+				Bytes.toBytes("v"));
+		assertTrue(index.contains(present));
+		assertFalse(index.contains(missing));
+
+		ByteBuffer buffer = ByteBuffer.wrap(Arrays.copyOfRange(present.getBuffer(), present.getOffset(),
+				present.getOffset() + present.getLength()));
+		assertTrue(index.contains(new ByteBufferKeyValue(buffer, 0, present.getLength())));
+	}
+}
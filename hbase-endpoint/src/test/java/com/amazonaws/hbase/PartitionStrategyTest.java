@@ -0,0 +1,56 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+import org.apache.hadoop.hbase.wal.WALEdit;
+import org.apache.hadoop.hbase.wal.WALKeyImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PartitionStrategyTest {
+	private WALKeyImpl key;
+
+	@Before
+	public void setUp() {
+		key = new WALKeyImpl(Bytes.toBytes("region"), TableName.valueOf("table"), 1000L);
+	}
+
+	@Test
+	public void testPartitionByRow() {
+		String row1 = PartitionStrategy.ROW.getPartition(newEntry("row1"));
+
+		assertEquals(row1, PartitionStrategy.ROW.getPartition(newEntry("row1", "row1")));
+		assertNotEquals(row1, PartitionStrategy.ROW.getPartition(newEntry("row2")));
+		// A multi-row edit stays whole, in the partition of its first row.
+		assertEquals(row1, PartitionStrategy.ROW.getPartition(newEntry("row1", "row2")));
+	}
+
+	@Test
+	public void testPartitions() {
+		Entry entry = newEntry("row1", "row2");
+
+		assertNull(PartitionStrategy.NONE.getPartition(entry));
+		assertEquals("region", PartitionStrategy.REGION.getPartition(entry));
+		assertEquals("table", PartitionStrategy.TABLE.getPartition(entry));
+		assertEquals(PartitionStrategy.NONE, PartitionStrategy.fromString(null));
+		assertEquals(PartitionStrategy.ROW, PartitionStrategy.fromString(" Row "));
+	}
+
+	private Entry newEntry(String... rows) {
+		WALEdit edit = new WALEdit();
+		for (String row : rows) {
+			edit.add(new KeyValue(Bytes.toBytes(row), Bytes.toBytes("cf"), Bytes.toBytes("q"), 1000L,
+					Bytes.toBytes("value")));
+		}
+		return new Entry(key, edit);
+	}
+}
@@ -0,0 +1,93 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.TableNotFoundException;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.replication.ReplicationEndpoint.ReplicateContext;
+import org.apache.hadoop.hbase.replication.WALEntryFilter;
+import org.apache.hadoop.hbase.replication.regionserver.MetricsSource;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+import org.apache.hadoop.hbase.wal.WALEdit;
+import org.apache.hadoop.hbase.wal.WALKeyImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StreamingReplicationEndpointTest {
+	private static final TableName TABLE = TableName.valueOf("table");
+	private static final TableName DELETED = TableName.valueOf("deleted");
+	private static final TableName NOT_MAPPED = TableName.valueOf("notmapped");
+
+	private StreamingReplicationEndpoint endpoint;
+	private MetricsSource metrics;
+
+	@Before
+	public void setUp() throws Exception {
+		Configuration conf = new Configuration(false);
+		conf.setBoolean(ConfigurationUtil.REPLICATION_DROP_ON_DELETED_TABLE_KEY, true);
+		Admin admin = mock(Admin.class);
+		for (TableName tableName : new TableName[] { TABLE, NOT_MAPPED }) {
+			when(admin.getDescriptor(tableName)).thenReturn(TableDescriptorBuilder.newBuilder(tableName)
+					.setColumnFamily(ColumnFamilyDescriptorBuilder.of("cf")).build());
+		}
+		when(admin.getDescriptor(DELETED)).thenThrow(new TableNotFoundException(DELETED));
+		DataSink dataSink = mock(DataSink.class);
+		when(dataSink.accept(any(Entry.class))).thenAnswer(
+				invocation -> !((Entry) invocation.getArgument(0)).getKey().getTableName().equals(NOT_MAPPED));
+		metrics = mock(MetricsSource.class);
+
+		endpoint = new StreamingReplicationEndpoint();
+		endpoint.configUtil = new ConfigurationUtil(conf);
+		endpoint.descriptorCache = new TableDescriptorCache(admin, 60000L, 10);
+		endpoint.dataSink = dataSink;
+		// Drops every entry of TABLE, the only one the other filters let through.
+		endpoint.filters = mock(WALEntryFilter.class);
+		endpoint.metrics = metrics;
+	}
+
+	@Test
+	public void testDroppedMetrics() throws Exception {
+		List<Entry> entries = new ArrayList<Entry>();
+		entries.add(newEntry(DELETED));
+		entries.add(newEntry(DELETED));
+		entries.add(newEntry(NOT_MAPPED));
+		entries.add(newEntry(TABLE));
+
+		assertTrue(endpoint.replicate(new ReplicateContext().setEntries(entries).setWalGroupId("wal")));
+
+		verify(metrics).incCounters(StreamingReplicationEndpoint.METRIC_DROPPED_TABLE_EDITS, 2L);
+		verify(metrics).incCounters(StreamingReplicationEndpoint.METRIC_DROPPED_NOT_MAPPED_EDITS, 1L);
+		verify(metrics).incCounters(StreamingReplicationEndpoint.METRIC_DROPPED_FILTERED_EDITS, 1L);
+		verify(metrics, never()).incCounters(eq(StreamingReplicationEndpoint.METRIC_DROPPED_COLUMN_FAMILY_EDITS),
+				anyLong());
+		verify(metrics).setGauge(TableDescriptorCache.METRIC_MISSES, 3L);
+		assertEquals(2, endpoint.getDroppedTableEdits());
+	}
+
+	private static Entry newEntry(TableName tableName) {
+		WALEdit edit = new WALEdit();
+		edit.add(new KeyValue(Bytes.toBytes("row"), Bytes.toBytes("cf"), Bytes.toBytes("q"), 1000L,
+				Bytes.toBytes("value")));
+		return new Entry(new WALKeyImpl(Bytes.toBytes("region"), tableName, 1000L), edit);
+	}
+}
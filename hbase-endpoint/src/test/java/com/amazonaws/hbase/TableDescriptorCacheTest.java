@@ -0,0 +1,93 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.TableNotFoundException;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.replication.regionserver.MetricsSource;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TableDescriptorCacheTest {
+	private static final TableName TABLE = TableName.valueOf("table");
+	private static final TableName MISSING = TableName.valueOf("missing");
+
+	private Admin admin;
+
+	@Before
+	public void setUp() throws Exception {
+		admin = mock(Admin.class);
+		TableDescriptor descriptor = TableDescriptorBuilder.newBuilder(TABLE)
+				.setColumnFamily(ColumnFamilyDescriptorBuilder.of("cf"))
+				.build();
+		when(admin.getDescriptor(TABLE)).thenReturn(descriptor);
+		when(admin.getDescriptor(MISSING)).thenThrow(new TableNotFoundException(MISSING));
+	}
+
+	@Test
+	public void testHitsAndMisses() throws Exception {
+		TableDescriptorCache cache = new TableDescriptorCache(admin, 60000L, 10);
+
+		assertTrue(cache.tableExists(TABLE));
+		assertTrue(cache.getColumnFamilyIndex(TABLE).contains(Bytes.toBytes("cf")));
+		assertFalse(cache.tableExists(MISSING));
+		assertNull(cache.getColumnFamilyIndex(MISSING));
+
+		verify(admin, times(1)).getDescriptor(TABLE);
+		verify(admin, times(1)).getDescriptor(MISSING);
+		assertEquals(2, cache.getMisses());
+		assertEquals(2, cache.getHits());
+	}
+
+	@Test
+	public void testUpdateMetrics() throws Exception {
+		TableDescriptorCache cache = new TableDescriptorCache(admin, 60000L, 10);
+		cache.tableExists(TABLE);
+		cache.tableExists(TABLE);
+		cache.tableExists(MISSING);
+
+		MetricsSource metrics = mock(MetricsSource.class);
+		cache.updateMetrics(metrics);
+		verify(metrics).setGauge(TableDescriptorCache.METRIC_HITS, 1L);
+		verify(metrics).setGauge(TableDescriptorCache.METRIC_MISSES, 2L);
+		verify(metrics).setGauge(TableDescriptorCache.METRIC_SIZE, 2L);
+	}
+
+	@Test
+	public void testTtlAndInvalidation() throws Exception {
+		TableDescriptorCache cache = new TableDescriptorCache(admin, 0L, 10);
+		cache.tableExists(TABLE);
+		cache.tableExists(TABLE);
+		verify(admin, times(2)).getDescriptor(TABLE);
+
+		cache = new TableDescriptorCache(admin, 60000L, 10);
+		cache.tableExists(TABLE);
+		assertFalse(cache.invalidateIfLoadedBefore(TABLE, 0L));
+		assertTrue(cache.invalidateIfLoadedBefore(TABLE, Long.MAX_VALUE));
+		cache.tableExists(TABLE);
+		verify(admin, times(4)).getDescriptor(TABLE);
+	}
+
+	@Test
+	public void testSizeBound() throws Exception {
+		TableDescriptorCache cache = new TableDescriptorCache(admin, 60000L, 1);
+		cache.tableExists(TABLE);
+		cache.tableExists(MISSING);
+		assertEquals(1, cache.size());
+	}
+}
@@ -0,0 +1,190 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+import org.apache.hadoop.hbase.wal.WALEdit;
+import org.apache.hadoop.hbase.wal.WALKeyImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.hbase.model.HBaseWALEntry;
+import com.amazonaws.hbase.serde.CompressionCodec;
+import com.amazonaws.hbase.serde.CompressionCodecs;
+import com.amazonaws.hbase.serde.RecordEnvelope;
+import com.amazonaws.hbase.serde.RecordFormat;
+import com.amazonaws.hbase.serde.WALEntryEnvelopeDecoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class WALEntrySerializerTest {
+	private ObjectMapper objectMapper;
+	private Entry entry;
+
+	@Before
+	public void setUp() {
+		objectMapper = new ObjectMapper();
+		WALEdit edit = new WALEdit();
+		for (int i = 0; i < 100; i++) {
+			edit.add(new KeyValue(Bytes.toBytes("row" + i), Bytes.toBytes("cf"), Bytes.toBytes("q"),
+					1000L + i, Bytes.toBytes("value" + i)));
+		}
+		entry = new Entry(new WALKeyImpl(Bytes.toBytes("region"), TableName.valueOf("table"), 1000L), edit);
+	}
+
+	@Test
+	public void testSerialize() throws Exception {
+		WALEntrySerializer serializer = new WALEntrySerializer(objectMapper, false, new ByteArrayPool(4));
+		byte[] expected = objectMapper.writeValueAsString(new HBaseWALEntry(entry)).getBytes("UTF-8");
+
+		assertArrayEquals(expected, toBytes(serializer.serialize(entry)));
+	}
+
+	@Test
+	public void testSerializeCompressed() throws Exception {
+		WALEntrySerializer serializer = new WALEntrySerializer(objectMapper, true, new ByteArrayPool(4));
+		byte[] expected = objectMapper.writeValueAsString(new HBaseWALEntry(entry)).getBytes("UTF-8");
+
+		assertArrayEquals(expected, gunzip(toBytes(serializer.serialize(entry))));
+	}
+
+	@Test
+	public void testReleaseReusesArray() throws Exception {
+		ByteArrayPool pool = new ByteArrayPool(4);
+		WALEntrySerializer serializer = new WALEntrySerializer(objectMapper, true, pool);
+
+		ByteBuffer first = serializer.serialize(entry);
+		serializer.release(first);
+		ByteBuffer second = serializer.serialize(entry);
+
+		assertSame(first.array(), second.array());
+		assertEquals(1, pool.getReused());
+	}
+
+	@Test
+	public void testPoolRetainedBytesBounded() {
+		ByteArrayPool pool = new ByteArrayPool(16, 1024, 2048);
+
+		pool.release(new byte[1024]);
+		pool.release(new byte[1024]);
+		pool.release(new byte[1024]);
+		pool.release(new byte[4096]);
+
+		assertEquals(2, pool.size());
+		assertEquals(2048, pool.getRetainedBytes());
+		pool.acquire();
+		assertEquals(1024, pool.getRetainedBytes());
+		pool.release(new byte[512]);
+		assertEquals(2, pool.size());
+	}
+
+	@Test
+	public void testEnvelope() throws Exception {
+		String expected = objectMapper.writeValueAsString(new HBaseWALEntry(entry));
+		for (RecordFormat format : new RecordFormat[] { RecordFormat.JSON, RecordFormat.BINARY }) {
+			for (CompressionCodec codec : new CompressionCodec[] { CompressionCodecs.NONE, CompressionCodecs.GZIP,
+					CompressionCodecs.ZSTD, CompressionCodecs.LZ4, CompressionCodecs.SNAPPY }) {
+				WALEntrySerializer serializer = new WALEntrySerializer(format.newEncoder(), codec,
+						new ByteArrayPool(4), format);
+				byte[] record = toBytes(serializer.serialize(entry));
+
+				assertTrue(RecordEnvelope.hasEnvelope(record, 0, record.length));
+				assertEquals(format, RecordEnvelope.readHeader(record, 0).getFormat());
+				assertEquals(codec.getId(), RecordEnvelope.readHeader(record, 0).getCompression());
+				// The consumer's own default doesn't matter for enveloped records.
+				HBaseWALEntry decoded = new WALEntryEnvelopeDecoder(RecordFormat.CBOR, false).decode(record);
+				assertEquals(expected, objectMapper.writeValueAsString(decoded));
+			}
+		}
+	}
+
+	@Test
+	public void testNoEnvelope() throws Exception {
+		WALEntrySerializer serializer = new WALEntrySerializer(objectMapper, true, new ByteArrayPool(4));
+		byte[] record = toBytes(serializer.serialize(entry));
+
+		assertFalse(RecordEnvelope.hasEnvelope(record, 0, record.length));
+		assertEquals(objectMapper.writeValueAsString(new HBaseWALEntry(entry)), objectMapper.writeValueAsString(
+				new WALEntryEnvelopeDecoder(RecordFormat.JSON, true).decode(record)));
+	}
+
+	@Test
+	public void testBatch() throws Exception {
+		List<Entry> entries = new ArrayList<Entry>();
+		for (int i = 0; i < 3; i++) {
+			WALEdit edit = new WALEdit();
+			edit.add(new KeyValue(Bytes.toBytes("row" + i), Bytes.toBytes("cf"), Bytes.toBytes("q"),
+					1000L + i, Bytes.toBytes("value" + i)));
+			entries.add(new Entry(new WALKeyImpl(Bytes.toBytes("region"), TableName.valueOf("table"), 1000L + i), edit));
+		}
+		for (RecordFormat format : new RecordFormat[] { RecordFormat.JSON, RecordFormat.GROUPED }) {
+			for (CompressionCodec codec : new CompressionCodec[] { CompressionCodecs.NONE, CompressionCodecs.ZSTD }) {
+				WALEntrySerializer serializer = new WALEntrySerializer(format.newEncoder(), codec,
+						new ByteArrayPool(4), format);
+				byte[] record = toBytes(serializer.serialize(entries));
+
+				assertTrue(RecordEnvelope.readHeader(record, 0).isBatch());
+				assertEquals(format, RecordEnvelope.readHeader(record, 0).getFormat());
+				List<HBaseWALEntry> decoded = new WALEntryEnvelopeDecoder(RecordFormat.JSON, false).decodeAll(record);
+				assertEquals(entries.size(), decoded.size());
+				for (int i = 0; i < entries.size(); i++) {
+					assertEquals(objectMapper.writeValueAsString(new HBaseWALEntry(entries.get(i))),
+							objectMapper.writeValueAsString(decoded.get(i)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDecodeAllSingleEntry() throws Exception {
+		WALEntrySerializer serializer = new WALEntrySerializer(objectMapper, true, new ByteArrayPool(4));
+		List<HBaseWALEntry> decoded = new WALEntryEnvelopeDecoder(RecordFormat.JSON, true)
+				.decodeAll(toBytes(serializer.serialize(entry)));
+
+		assertEquals(1, decoded.size());
+		assertEquals(objectMapper.writeValueAsString(new HBaseWALEntry(entry)),
+				objectMapper.writeValueAsString(decoded.get(0)));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testBatchNeedsEnvelope() throws Exception {
+		new WALEntrySerializer(objectMapper, false, new ByteArrayPool(4)).serialize(Collections.singletonList(entry));
+	}
+
+	private static byte[] toBytes(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+
+	private static byte[] gunzip(byte[] bytes) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+			byte[] buf = new byte[4096];
+			int n;
+			while ((n = in.read(buf)) > 0) {
+				out.write(buf, 0, n);
+			}
+		}
+		return out.toByteArray();
+	}
+}
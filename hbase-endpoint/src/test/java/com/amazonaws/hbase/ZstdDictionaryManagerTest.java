@@ -0,0 +1,189 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+import org.apache.hadoop.hbase.wal.WALEdit;
+import org.apache.hadoop.hbase.wal.WALKeyImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.hbase.model.HBaseWALEntry;
+import com.amazonaws.hbase.serde.CompressionCodec;
+import com.amazonaws.hbase.serde.CompressionCodecs;
+import com.amazonaws.hbase.serde.RecordEnvelope;
+import com.amazonaws.hbase.serde.RecordFormat;
+import com.amazonaws.hbase.serde.WALEntryEnvelopeDecoder;
+import com.amazonaws.hbase.serde.ZstdDictionary;
+import com.amazonaws.hbase.serde.ZstdDictionaryCodec;
+import com.amazonaws.hbase.serde.ZstdDictionaryStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ZstdDictionaryManagerTest {
+	private static final TableName TABLE = TableName.valueOf("ns", "table");
+
+	private File dir;
+	private ZstdDictionaryManager manager;
+	private WALEntrySerializer serializer;
+
+	@Before
+	public void setUp() throws Exception {
+		dir = Files.createTempDirectory("zstd-dictionaries").toFile();
+		ZstdDictionaryStore store = new ZstdDictionaryStore(dir.getAbsolutePath(), new Configuration(),
+				CompressionCodecs.DEFAULT_LEVEL);
+		// Trains on the thread filling the sample buffer, so the test sees the dictionary right away.
+		manager = new ZstdDictionaryManager(store, CompressionCodecs.ZSTD, 4 * 1024, 64 * 1024,
+				Long.MAX_VALUE, CompressionCodecs.DEFAULT_LEVEL, Runnable::run);
+		serializer = new WALEntrySerializer(manager.samplingEncoder(RecordFormat.JSON.newEncoder()),
+				manager::getCodec, new ByteArrayPool(4), RecordFormat.JSON);
+	}
+
+	@After
+	public void tearDown() {
+		FileUtil.fullyDelete(dir);
+	}
+
+	@Test
+	public void testTrainAndDecode() throws Exception {
+		assertSame(CompressionCodecs.ZSTD, manager.getCodec(TABLE));
+		byte[] plain = toBytes(serializer.serialize(newEntry(0)));
+		assertEquals(CompressionCodecs.ZSTD_ID, RecordEnvelope.readHeader(plain, 0).getCompression());
+
+		// Enough records to fill the sample buffer.
+		for (int i = 1; i < 1000 && manager.getCodec(TABLE) == CompressionCodecs.ZSTD; i++) {
+			serializer.release(serializer.serialize(newEntry(i)));
+		}
+		CompressionCodec codec = manager.getCodec(TABLE);
+		assertEquals(CompressionCodecs.ZSTD_DICTIONARY_ID, codec.getId());
+		ZstdDictionary dictionary = ((ZstdDictionaryCodec) codec).getDictionary();
+		assertTrue(new File(dir, dictionary.getFileName()).isFile());
+
+		Entry entry = newEntry(5000);
+		byte[] record = toBytes(serializer.serialize(entry));
+		assertEquals(CompressionCodecs.ZSTD_DICTIONARY_ID, RecordEnvelope.readHeader(record, 0).getCompression());
+		assertTrue("dictionary " + record.length + " plain " + plain.length, record.length < plain.length / 2);
+
+		// A consumer loads the dictionary from the directory.
+		ZstdDictionaryStore consumerStore = new ZstdDictionaryStore(dir.getAbsolutePath(), new Configuration(),
+				CompressionCodecs.DEFAULT_LEVEL);
+		WALEntryEnvelopeDecoder decoder = new WALEntryEnvelopeDecoder(RecordFormat.JSON, CompressionCodecs.NONE,
+				new ZstdDictionaryCodec(consumerStore));
+		ObjectMapper objectMapper = new ObjectMapper();
+		assertEquals(objectMapper.writeValueAsString(new HBaseWALEntry(entry)),
+				objectMapper.writeValueAsString(decoder.decode(record)));
+		assertNotNull(consumerStore.get(dictionary.getId()));
+	}
+
+	@Test
+	public void testPublishTwice() throws Exception {
+		for (int i = 0; i < 1000 && manager.getCodec(TABLE) == CompressionCodecs.ZSTD; i++) {
+			serializer.release(serializer.serialize(newEntry(i)));
+		}
+		ZstdDictionary dictionary = ((ZstdDictionaryCodec) manager.getCodec(TABLE)).getDictionary();
+
+		// Another region server publishing the same dictionary.
+		ZstdDictionaryStore other = new ZstdDictionaryStore(dir.getAbsolutePath(), new Configuration(),
+				CompressionCodecs.DEFAULT_LEVEL);
+		other.publish(dictionary);
+		assertEquals(0, dir.listFiles((d, name) -> name.contains(".tmp")).length);
+
+		// Same id, other bytes.
+		byte[] bytes = dictionary.getBytes().clone();
+		bytes[bytes.length - 1] ^= 1;
+		try {
+			other.publish(new ZstdDictionary(bytes, CompressionCodecs.DEFAULT_LEVEL));
+			fail("Published over another dictionary");
+		} catch (IOException e) {
+			// expected
+		}
+		assertEquals(0, dir.listFiles((d, name) -> name.contains(".tmp")).length);
+	}
+
+	@Test
+	public void testEncodeDoesNotWaitForPublish() throws Exception {
+		final CountDownLatch publishing = new CountDownLatch(1);
+		final CountDownLatch published = new CountDownLatch(1);
+		ZstdDictionaryStore store = new ZstdDictionaryStore(dir.getAbsolutePath(), new Configuration(),
+				CompressionCodecs.DEFAULT_LEVEL) {
+			@Override
+			public void publish(ZstdDictionary dictionary) throws IOException {
+				publishing.countDown();
+				try {
+					published.await();
+				} catch (InterruptedException e) {
+					throw new InterruptedIOException();
+				}
+				super.publish(dictionary);
+			}
+		};
+		ZstdDictionaryManager background = new ZstdDictionaryManager(store, CompressionCodecs.ZSTD, 4 * 1024,
+				64 * 1024, Long.MAX_VALUE, CompressionCodecs.DEFAULT_LEVEL);
+		final WALEntrySerializer serializer = new WALEntrySerializer(
+				background.samplingEncoder(RecordFormat.JSON.newEncoder()), background::getCodec,
+				new ByteArrayPool(4), RecordFormat.JSON);
+		try {
+			int i = 0;
+			while (publishing.getCount() > 0 && i < 1000) {
+				serializer.release(serializer.serialize(newEntry(i++)));
+			}
+			assertTrue("Sample buffer never filled", publishing.await(30, TimeUnit.SECONDS));
+
+			// The publish is blocked, records of the table are still written with plain zstd.
+			ExecutorService thread = Executors.newSingleThreadExecutor();
+			try {
+				Future<byte[]> record = thread.submit(() -> toBytes(serializer.serialize(newEntry(5000))));
+				assertEquals(CompressionCodecs.ZSTD_ID,
+						RecordEnvelope.readHeader(record.get(5, TimeUnit.SECONDS), 0).getCompression());
+			} finally {
+				thread.shutdownNow();
+			}
+			assertSame(CompressionCodecs.ZSTD, background.getCodec(TABLE));
+
+			published.countDown();
+			for (int wait = 0; wait < 300 && background.getCodec(TABLE) == CompressionCodecs.ZSTD; wait++) {
+				Thread.sleep(100);
+			}
+			assertEquals(CompressionCodecs.ZSTD_DICTIONARY_ID, background.getCodec(TABLE).getId());
+		} finally {
+			published.countDown();
+			background.shutdown();
+		}
+	}
+
+	private static Entry newEntry(int i) {
+		WALEdit edit = new WALEdit();
+		edit.add(new KeyValue(Bytes.toBytes(String.format("sensor-%06d", i)), Bytes.toBytes("cf"),
+				Bytes.toBytes("speed"), 1600000000000L + i, Bytes.toBytes(Integer.toString(i % 120))));
+		return new Entry(new WALKeyImpl(Bytes.toBytes("d41d8cd98f00b204e9800998ecf8427e"), TABLE, 1000L + i), edit);
+	}
+
+	private static byte[] toBytes(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,37 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.hbase.ByteBufferKeyValue;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+
+public class HBaseCellTest {
+
+	@Test
+	public void testFromByteBufferCell() {
+		KeyValue kv = new KeyValue(Bytes.toBytes("row"), Bytes.toBytes("cf"), Bytes.toBytes("qualifier"), 3L,
+				KeyValue.Type.Put, Bytes.toBytes("a value"));
+		// A heap buffer whose array and cell start at an offset.
+		byte[] padded = new byte[kv.getLength() + 7];
+		System.arraycopy(kv.getBuffer(), kv.getOffset(), padded, 7, kv.getLength());
+		ByteBuffer buffer = ByteBuffer.wrap(padded, 3, padded.length - 3).slice();
+
+		HBaseCell expected = new HBaseCell(kv);
+		HBaseCell cell = new HBaseCell(new ByteBufferKeyValue(buffer, 4, kv.getLength()));
+		assertArrayEquals(Bytes.toBytes("row"), cell.getRow());
+		assertArrayEquals(expected.getRow(), cell.getRow());
+		assertArrayEquals(expected.getFamily(), cell.getFamily());
+		assertArrayEquals(expected.getQualifier(), cell.getQualifier());
+		assertArrayEquals(expected.getValue(), cell.getValue());
+		assertEquals(expected.getTimeStamp(), cell.getTimeStamp());
+		assertEquals(expected.getType(), cell.getType());
+	}
+}
@@ -0,0 +1,142 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompressionCodecsTest {
+	private byte[] data;
+
+	@Before
+	public void setUp() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (int i = 0; i < 2000; i++) {
+			byte[] line = Bytes.toBytes("{\"qualifier\":\"c3BlZWQ=\",\"value\":\"" + (i % 120) + "\"}");
+			out.write(line, 0, line.length);
+		}
+		data = out.toByteArray();
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		for (String name : new String[] { "none", "gzip", "zstd", "lz4", "snappy" }) {
+			CompressionCodec codec = CompressionCodecs.forName(name, CompressionCodecs.DEFAULT_LEVEL);
+			assertEquals(name, codec.getName());
+			assertSame(codec, CompressionCodecs.forId(codec.getId()));
+			byte[] compressed = compress(codec, data);
+			if (codec != CompressionCodecs.NONE) {
+				assertTrue(name, compressed.length < data.length / 4);
+			}
+			assertArrayEquals(name, data, decompress(codec, compressed));
+		}
+	}
+
+	@Test
+	public void testLevels() throws Exception {
+		for (String name : new String[] { "gzip", "zstd" }) {
+			CompressionCodec fast = CompressionCodecs.forName(name, 1);
+			CompressionCodec best = CompressionCodecs.forName(name, 9);
+			byte[] fastCompressed = compress(fast, data);
+			byte[] bestCompressed = compress(best, data);
+			assertTrue(name, bestCompressed.length <= fastCompressed.length);
+			// Levels are a writer setting, any instance reads the data.
+			assertArrayEquals(name, data, decompress(CompressionCodecs.forId(fast.getId()), fastCompressed));
+			assertArrayEquals(name, data, decompress(CompressionCodecs.forId(best.getId()), bestCompressed));
+		}
+	}
+
+	@Test
+	public void testReuse() throws Exception {
+		byte[] small = Bytes.toBytes("{\"row\":\"cm93\"}");
+		for (String name : new String[] { "gzip", "zstd", "lz4", "snappy" }) {
+			CompressionCodec codec = CompressionCodecs.forName(name, CompressionCodecs.DEFAULT_LEVEL);
+			// Pooled compressors are reset between records, whatever the previous record was.
+			byte[] first = compress(codec, small);
+			assertArrayEquals(name, data, decompress(codec, compress(codec, data)));
+			assertArrayEquals(name, first, compress(codec, small));
+			assertArrayEquals(name, small, decompress(codec, first));
+			assertArrayEquals(name, new byte[0], decompress(codec, compress(codec, new byte[0])));
+		}
+	}
+
+	@Test
+	public void testSingleByteWrites() throws Exception {
+		for (String name : new String[] { "gzip", "zstd", "lz4", "snappy" }) {
+			CompressionCodec codec = CompressionCodecs.forName(name, CompressionCodecs.DEFAULT_LEVEL);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			try (OutputStream compressed = codec.compress(out)) {
+				for (byte b : data) {
+					compressed.write(b);
+				}
+			}
+			assertArrayEquals(name, data, decompress(codec, out.toByteArray()));
+		}
+	}
+
+	@Test
+	public void testCustomCodec() {
+		CompressionCodec codec = CompressionCodecs.forName(PassThroughCodec.class.getName(), 3);
+		assertTrue(codec instanceof PassThroughCodec);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownCodec() {
+		CompressionCodecs.forName("brotli", CompressionCodecs.DEFAULT_LEVEL);
+	}
+
+	private static byte[] compress(CompressionCodec codec, byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (OutputStream compressed = codec.compress(out)) {
+			compressed.write(data);
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] decompress(CompressionCodec codec, byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream in = codec.decompress(new ByteArrayInputStream(data))) {
+			byte[] buf = new byte[4096];
+			int n;
+			while ((n = in.read(buf)) > 0) {
+				out.write(buf, 0, n);
+			}
+		}
+		return out.toByteArray();
+	}
+
+	public static class PassThroughCodec implements CompressionCodec {
+		@Override
+		public byte getId() {
+			return 64;
+		}
+
+		@Override
+		public String getName() {
+			return "passthrough";
+		}
+
+		@Override
+		public OutputStream compress(OutputStream out) {
+			return out;
+		}
+
+		@Override
+		public InputStream decompress(InputStream in) {
+			return in;
+		}
+	}
+}
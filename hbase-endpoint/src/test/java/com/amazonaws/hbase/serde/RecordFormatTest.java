@@ -0,0 +1,75 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+import org.apache.hadoop.hbase.wal.WALEdit;
+import org.apache.hadoop.hbase.wal.WALKeyImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.hbase.model.HBaseWALEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class RecordFormatTest {
+	private ObjectMapper objectMapper;
+	private Entry entry;
+
+	@Before
+	public void setUp() {
+		objectMapper = new ObjectMapper();
+		WALEdit edit = new WALEdit();
+		for (int i = 0; i < 50; i++) {
+			edit.add(new KeyValue(Bytes.toBytes("row"), Bytes.toBytes(i % 2 == 0 ? "cf" : "af"),
+					Bytes.toBytes("q" + i), 1000L + i, Bytes.toBytes("value" + i)));
+		}
+		entry = new Entry(new WALKeyImpl(Bytes.toBytes("region"), TableName.valueOf("ns:table"), 1000L), edit);
+	}
+
+	@Test
+	public void testFromString() {
+		assertEquals(RecordFormat.JSON, RecordFormat.fromString(null));
+		assertEquals(RecordFormat.JSON, RecordFormat.fromString(" "));
+		assertEquals(RecordFormat.SMILE, RecordFormat.fromString("Smile"));
+	}
+
+	@Test
+	public void testAllFormatsDecodeAsJson() throws Exception {
+		byte[] json = encode(RecordFormat.JSON);
+		String expected = toString(RecordFormat.JSON.newDecoder().decode(json));
+		for (RecordFormat format : RecordFormat.values()) {
+			byte[] encoded = encode(format);
+			assertEquals(format.name(), expected, toString(format.newDecoder().decode(encoded)));
+			if (format != RecordFormat.JSON) {
+				assertTrue(format.name(), encoded.length < json.length);
+			}
+		}
+	}
+
+	// The json decoder collects the families in a HashSet, sort them before comparing.
+	@SuppressWarnings("unchecked")
+	private String toString(HBaseWALEntry decoded) throws IOException {
+		Set<byte[]> families = new TreeSet<byte[]>(Bytes.BYTES_COMPARATOR);
+		families.addAll(decoded.getWalEdit().getFamilies());
+		decoded.getWalEdit().setFamilies(families);
+		return objectMapper.writeValueAsString(decoded);
+	}
+
+	private byte[] encode(RecordFormat format) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		format.newEncoder().encode(entry, out);
+		return out.toByteArray();
+	}
+}
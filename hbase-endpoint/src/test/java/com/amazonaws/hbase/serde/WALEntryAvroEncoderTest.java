@@ -0,0 +1,71 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import static com.amazonaws.hbase.serde.WALEntryTestUtil.encode;
+import static com.amazonaws.hbase.serde.WALEntryTestUtil.newKey;
+import static com.amazonaws.hbase.serde.WALEntryTestUtil.toSortedJson;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+import org.apache.hadoop.hbase.wal.WALEdit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WALEntryAvroEncoderTest {
+	private Entry entry;
+
+	@Before
+	public void setUp() {
+		WALEdit edit = new WALEdit();
+		for (int i = 0; i < 20; i++) {
+			edit.add(new KeyValue(Bytes.toBytes("row"), Bytes.toBytes(i % 2 == 0 ? "cf" : "af"),
+					Bytes.toBytes("q" + i), 1000L + i, Bytes.toBytes("value" + i)));
+		}
+		edit.add(new KeyValue(Bytes.toBytes("row"), Bytes.toBytes("cf"), Bytes.toBytes("q"), 2L,
+				KeyValue.Type.DeleteFamily));
+		entry = new Entry(newKey(), edit);
+	}
+
+	@Test
+	public void testDecodesAsJson() throws Exception {
+		byte[] avro = encode(RecordFormat.AVRO, entry);
+
+		assertEquals(toSortedJson(RecordFormat.JSON.newDecoder().decode(encode(RecordFormat.JSON, entry))),
+				toSortedJson(RecordFormat.AVRO.newDecoder().decode(avro)));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testReadableWithSchema() throws Exception {
+		byte[] avro = encode(RecordFormat.AVRO, entry);
+		GenericRecord record = new GenericDatumReader<GenericRecord>(WALEntryAvroFormat.SCHEMA).read(null,
+				DecoderFactory.get().binaryDecoder(avro, WALEntryAvroFormat.HEADER_LENGTH,
+						avro.length - WALEntryAvroFormat.HEADER_LENGTH, null));
+
+		GenericRecord key = (GenericRecord) record.get("key");
+		assertEquals("ns:table", key.get("tablename").toString());
+		assertEquals(1000L, key.get("writeTime"));
+		List<GenericRecord> cells = (List<GenericRecord>) ((GenericRecord) record.get("edit")).get("cells");
+		assertEquals(21, cells.size());
+		assertEquals("DeleteFamily", cells.get(20).get("type").toString());
+		assertEquals(ByteBuffer.wrap(Bytes.toBytes("value0")), cells.get(0).get("value"));
+	}
+
+	@Test(expected = IOException.class)
+	public void testUnknownFingerprint() throws Exception {
+		byte[] avro = encode(RecordFormat.AVRO, entry);
+		avro[5] ^= 1;
+		RecordFormat.AVRO.newDecoder().decode(avro);
+	}
+}
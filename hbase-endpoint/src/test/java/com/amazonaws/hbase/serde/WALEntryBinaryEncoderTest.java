@@ -0,0 +1,69 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import static com.amazonaws.hbase.serde.WALEntryTestUtil.encode;
+import static com.amazonaws.hbase.serde.WALEntryTestUtil.newKey;
+import static com.amazonaws.hbase.serde.WALEntryTestUtil.toSortedJson;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.hbase.ByteBufferKeyValue;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.regionserver.MultiVersionConcurrencyControl;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+import org.apache.hadoop.hbase.wal.WALEdit;
+import org.apache.hadoop.hbase.wal.WALKeyImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WALEntryBinaryEncoderTest {
+	private Entry entry;
+
+	@Before
+	public void setUp() {
+		WALEdit edit = new WALEdit();
+		for (int i = 0; i < 50; i++) {
+			edit.add(new KeyValue(Bytes.toBytes("row"), Bytes.toBytes(i % 2 == 0 ? "cf" : "af"),
+					Bytes.toBytes("q" + i), 1000L + i, Bytes.toBytes("value" + i)));
+		}
+		edit.add(new KeyValue(Bytes.toBytes("row"), Bytes.toBytes("cf"), Bytes.toBytes("q"), 2L,
+				KeyValue.Type.DeleteColumn));
+		KeyValue kv = new KeyValue(Bytes.toBytes("row2"), Bytes.toBytes("cf"), Bytes.toBytes("q"), 3L,
+				new byte[300]);
+		edit.add(new ByteBufferKeyValue(ByteBuffer.wrap(kv.getBuffer()), kv.getOffset(), kv.getLength()));
+		WALKeyImpl key = newKey();
+		key.setWriteEntry(new MultiVersionConcurrencyControl().begin());
+		entry = new Entry(key, edit);
+	}
+
+	@Test
+	public void testDecodesAsJson() throws Exception {
+		byte[] json = encode(RecordFormat.JSON, entry);
+		byte[] binary = encode(RecordFormat.BINARY, entry);
+
+		assertTrue(binary.length < json.length);
+		assertEquals(toSortedJson(RecordFormat.JSON.newDecoder().decode(json)),
+				toSortedJson(RecordFormat.BINARY.newDecoder().decode(binary)));
+	}
+
+	@Test
+	public void testEmptyEdit() throws Exception {
+		Entry empty = new Entry(new WALKeyImpl(Bytes.toBytes("region"), TableName.valueOf("table"), 1L),
+				new WALEdit());
+
+		assertEquals(toSortedJson(RecordFormat.JSON.newDecoder().decode(encode(RecordFormat.JSON, empty))),
+				toSortedJson(RecordFormat.BINARY.newDecoder().decode(encode(RecordFormat.BINARY, empty))));
+	}
+
+	@Test(expected = IOException.class)
+	public void testUnsupportedVersion() throws Exception {
+		RecordFormat.BINARY.newDecoder().decode(new byte[] { 42 });
+	}
+}
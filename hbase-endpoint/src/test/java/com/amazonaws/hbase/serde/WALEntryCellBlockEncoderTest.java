@@ -0,0 +1,55 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import static com.amazonaws.hbase.serde.WALEntryTestUtil.encode;
+import static com.amazonaws.hbase.serde.WALEntryTestUtil.newKey;
+import static com.amazonaws.hbase.serde.WALEntryTestUtil.toSortedJson;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+import org.apache.hadoop.hbase.wal.WALEdit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WALEntryCellBlockEncoderTest {
+	private Entry entry;
+
+	@Before
+	public void setUp() {
+		WALEdit edit = new WALEdit();
+		for (int i = 0; i < 20; i++) {
+			edit.add(new KeyValue(Bytes.toBytes("row"), Bytes.toBytes(i % 2 == 0 ? "cf" : "af"),
+					Bytes.toBytes("q" + i), 1000L + i, Bytes.toBytes("value" + i)));
+		}
+		edit.add(new KeyValue(Bytes.toBytes("row"), Bytes.toBytes("cf"), Bytes.toBytes("q"), 2L,
+				KeyValue.Type.Delete));
+		entry = new Entry(newKey(), edit);
+	}
+
+	@Test
+	public void testDecodeCells() throws Exception {
+		WALEntryCellBlock block = new WALEntryCellBlockDecoder()
+				.decodeCells(new ByteArrayInputStream(encode(RecordFormat.CELLBLOCK, entry)));
+
+		assertEquals("ns:table", block.getKey().getTableName().toStringUtf8());
+		assertEquals(entry.getEdit().size(), block.getCells().size());
+		for (int i = 0; i < block.getCells().size(); i++) {
+			assertTrue(CellUtil.equals(entry.getEdit().getCells().get(i), block.getCells().get(i)));
+			assertTrue(CellUtil.matchingValue(entry.getEdit().getCells().get(i), block.getCells().get(i)));
+		}
+	}
+
+	@Test
+	public void testDecodesAsJson() throws Exception {
+		assertEquals(toSortedJson(RecordFormat.JSON.newDecoder().decode(encode(RecordFormat.JSON, entry))),
+				toSortedJson(RecordFormat.CELLBLOCK.newDecoder().decode(encode(RecordFormat.CELLBLOCK, entry))));
+	}
+}
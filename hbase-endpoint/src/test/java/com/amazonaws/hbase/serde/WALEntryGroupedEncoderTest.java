@@ -0,0 +1,82 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import static com.amazonaws.hbase.serde.WALEntryTestUtil.encode;
+import static com.amazonaws.hbase.serde.WALEntryTestUtil.newKey;
+import static com.amazonaws.hbase.serde.WALEntryTestUtil.toSortedJson;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.hbase.ByteBufferKeyValue;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+import org.apache.hadoop.hbase.wal.WALEdit;
+import org.apache.hadoop.hbase.wal.WALKeyImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WALEntryGroupedEncoderTest {
+	private WALEdit edit;
+
+	@Before
+	public void setUp() {
+		edit = new WALEdit();
+		byte[] row = Bytes.toBytes("a-fairly-long-row-key-0000000001");
+		for (int i = 0; i < 60; i++) {
+			edit.add(new KeyValue(row, Bytes.toBytes(i < 40 ? "cf" : "af"), Bytes.toBytes("q" + i), 1000L + i,
+					Bytes.toBytes(i)));
+		}
+	}
+
+	@Test
+	public void testSmallerThanBinary() throws Exception {
+		Entry entry = newEntry();
+		byte[] binary = encode(RecordFormat.BINARY, entry);
+		byte[] grouped = encode(RecordFormat.GROUPED, entry);
+
+		assertTrue(grouped.length * 2 < binary.length);
+		assertEquals(toSortedJson(RecordFormat.BINARY.newDecoder().decode(binary)),
+				toSortedJson(RecordFormat.GROUPED.newDecoder().decode(grouped)));
+	}
+
+	@Test
+	public void testKeepsCellOrder() throws Exception {
+		// Rows and families coming back after another one start a new group.
+		edit.add(new KeyValue(Bytes.toBytes("row2"), Bytes.toBytes("cf"), Bytes.toBytes("q"), 2L,
+				KeyValue.Type.DeleteColumn));
+		KeyValue kv = new KeyValue(Bytes.toBytes("a-fairly-long-row-key-0000000001"), Bytes.toBytes("cf"),
+				Bytes.toBytes("q"), 3L, new byte[300]);
+		edit.add(new ByteBufferKeyValue(ByteBuffer.wrap(kv.getBuffer()), kv.getOffset(), kv.getLength()));
+		Entry entry = newEntry();
+
+		assertEquals(toSortedJson(RecordFormat.BINARY.newDecoder().decode(
+				encode(RecordFormat.BINARY, entry))),
+				toSortedJson(RecordFormat.GROUPED.newDecoder().decode(
+						encode(RecordFormat.GROUPED, entry))));
+	}
+
+	@Test
+	public void testEmptyEdit() throws Exception {
+		Entry empty = new Entry(new WALKeyImpl(Bytes.toBytes("region"), TableName.valueOf("table"), 1L),
+				new WALEdit());
+
+		assertEquals(0, RecordFormat.GROUPED.newDecoder().decode(encode(RecordFormat.GROUPED, empty))
+				.getWalEdit().getCells().size());
+	}
+
+	@Test(expected = IOException.class)
+	public void testRejectsBinaryRecords() throws Exception {
+		RecordFormat.GROUPED.newDecoder().decode(encode(RecordFormat.BINARY, newEntry()));
+	}
+
+	private Entry newEntry() {
+		return new Entry(newKey(), edit);
+	}
+}
@@ -0,0 +1,62 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.hbase.model.HBaseCell;
+import com.amazonaws.hbase.model.HBaseWALEntry;
+
+public class WALEntryJsonDecoderTest {
+	private WALEntryJsonDecoder decoder;
+
+	@Before
+	public void setUp() {
+		decoder = new WALEntryJsonDecoder();
+	}
+
+	@Test
+	public void testAnyFieldOrderAndUnknownFields() throws Exception {
+		String json = "{\"edit\":{\"replay\":true,\"extra\":{\"a\":[1,{\"b\":2}]},"
+				+ "\"cells\":[{\"row\":\"cm93\",\"timeStamp\":5,\"type\":\"Put\",\"family\":\"Y2Y=\","
+				+ "\"value\":\"dg==\",\"qualifier\":\"cQ==\",\"tags\":[]}],\"families\":[\"Y2Y=\"]},"
+				+ "\"key\":{\"writeEntry\":{\"writeNumber\":7,\"completed\":false},\"tablename\":\"t\","
+				+ "\"replicationScope\":null,\"sequenceId\":3,\"writeTime\":4,\"nonce\":null}}";
+		HBaseWALEntry entry = decoder.decode(Bytes.toBytes(json));
+
+		assertEquals("t", entry.getWalKey().getTableName());
+		assertEquals(Long.valueOf(3L), entry.getWalKey().getSequenceId());
+		assertEquals(Long.valueOf(4L), entry.getWalKey().getWriteTime());
+		assertEquals(7L, entry.getWalKey().getWriteEntry().getWriteNumber());
+		assertNull(entry.getWalKey().getNonce());
+		assertTrue(entry.getWalEdit().getReplay());
+		assertEquals(1, entry.getWalEdit().getFamilies().size());
+		assertEquals(1, entry.getWalEdit().getCells().size());
+		HBaseCell cell = (HBaseCell) entry.getWalEdit().getCells().get(0);
+		assertArrayEquals(Bytes.toBytes("row"), cell.getRow());
+		assertArrayEquals(Bytes.toBytes("q"), cell.getQualifier());
+		assertArrayEquals(Bytes.toBytes("v"), cell.getValue());
+		assertEquals(5L, cell.getTimeStamp());
+		assertEquals("Put", cell.getType());
+	}
+
+	@Test
+	public void testNullFamilies() throws Exception {
+		HBaseWALEntry entry = decoder.decode(Bytes.toBytes(
+				"{\"key\":{\"writeTime\":1,\"sequenceId\":2,\"tablename\":\"t\"},"
+				+ "\"edit\":{\"cells\":[],\"families\":null,\"replay\":false}}"));
+
+		assertTrue(entry.getWalEdit().getFamilies().isEmpty());
+		assertFalse(entry.getWalEdit().getReplay());
+		assertNull(entry.getWalEdit().getMETAFAMILY());
+	}
+}
@@ -0,0 +1,85 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.hbase.ByteBufferKeyValue;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.regionserver.MultiVersionConcurrencyControl;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+import org.apache.hadoop.hbase.wal.WALEdit;
+import org.apache.hadoop.hbase.wal.WALKeyImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.hbase.model.HBaseWALEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class WALEntryJsonEncoderTest {
+	private ObjectMapper objectMapper;
+	private WALEntryJsonEncoder encoder;
+
+	@Before
+	public void setUp() {
+		objectMapper = new ObjectMapper();
+		encoder = new WALEntryJsonEncoder(objectMapper);
+	}
+
+	@Test
+	public void testSameOutputAsObjectMapper() throws Exception {
+		WALEdit edit = new WALEdit();
+		edit.add(new KeyValue(Bytes.toBytes("row"), Bytes.toBytes("cf"), Bytes.toBytes("q"), 1L,
+				Bytes.toBytes("value")));
+		edit.add(new KeyValue(Bytes.toBytes("row"), Bytes.toBytes("af"), Bytes.toBytes(""), 2L,
+				KeyValue.Type.DeleteFamily));
+		KeyValue kv = new KeyValue(Bytes.toBytes("row2"), Bytes.toBytes("cf"), Bytes.toBytes("qualifier"), 3L,
+				new byte[40000]);
+		edit.add(new ByteBufferKeyValue(ByteBuffer.wrap(kv.getBuffer()), kv.getOffset(), kv.getLength()));
+
+		WALKeyImpl key = new WALKeyImpl(Bytes.toBytes("region"), TableName.valueOf("ns:table"), 1000L);
+		key.setWriteEntry(new MultiVersionConcurrencyControl().begin());
+		assertEncodedAsObjectMapper(new Entry(key, edit));
+		assertEncodedAsObjectMapper(new Entry(
+				new WALKeyImpl(Bytes.toBytes("region"), TableName.valueOf("table"), 1000L), new WALEdit()));
+	}
+
+	@Test
+	public void testByteBufferCellSameAsKeyValue() throws Exception {
+		KeyValue kv = new KeyValue(Bytes.toBytes("row"), Bytes.toBytes("cf"), Bytes.toBytes("qualifier"), 3L,
+				Bytes.toBytes("a value"));
+		byte[] expected = encode(kv);
+
+		// A heap buffer whose array and cell start at an offset.
+		byte[] padded = new byte[kv.getLength() + 7];
+		System.arraycopy(kv.getBuffer(), kv.getOffset(), padded, 7, kv.getLength());
+		ByteBuffer heap = ByteBuffer.wrap(padded, 3, padded.length - 3).slice();
+		assertArrayEquals(expected, encode(new ByteBufferKeyValue(heap, 4, kv.getLength())));
+	}
+
+	private byte[] encode(Cell cell) throws Exception {
+		WALEdit edit = new WALEdit();
+		edit.add(cell);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		encoder.encode(new Entry(new WALKeyImpl(Bytes.toBytes("region"), TableName.valueOf("table"), 1000L), edit),
+				out);
+		return out.toByteArray();
+	}
+
+	private void assertEncodedAsObjectMapper(Entry entry) throws Exception {
+		byte[] expected = objectMapper.writeValueAsString(new HBaseWALEntry(entry)).getBytes("UTF-8");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		encoder.encode(entry, out);
+
+		assertEquals(new String(expected, "UTF-8"), new String(out.toByteArray(), "UTF-8"));
+		assertArrayEquals(expected, out.toByteArray());
+	}
+}
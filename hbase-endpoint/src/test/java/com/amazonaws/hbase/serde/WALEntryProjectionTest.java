@@ -0,0 +1,121 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.regionserver.MultiVersionConcurrencyControl;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+import org.apache.hadoop.hbase.wal.WALEdit;
+import org.apache.hadoop.hbase.wal.WALKeyImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.hbase.ConfigurationUtil;
+import com.amazonaws.hbase.model.HBaseWALEntry;
+import com.amazonaws.hbase.serde.WALEntryProjection.Field;
+
+public class WALEntryProjectionTest {
+	private static final TableName TABLE = TableName.valueOf("ns:table");
+
+	private Entry entry;
+
+	@Before
+	public void setUp() {
+		WALEdit edit = new WALEdit();
+		edit.add(new KeyValue(Bytes.toBytes("row"), Bytes.toBytes("cf"), Bytes.toBytes("q"), 1000L,
+				Bytes.toBytes("value")));
+		WALKeyImpl key = new WALKeyImpl(Bytes.toBytes("region"), TABLE, 1000L);
+		key.setWriteEntry(new MultiVersionConcurrencyControl().begin());
+		entry = new Entry(key, edit);
+	}
+
+	@Test
+	public void testParse() {
+		assertSame(WALEntryProjection.ALL, WALEntryProjection.parse(null));
+		assertSame(WALEntryProjection.ALL, WALEntryProjection.parse("all"));
+		assertSame(WALEntryProjection.NONE, WALEntryProjection.parse(""));
+		assertSame(WALEntryProjection.NONE, WALEntryProjection.parse("none"));
+		WALEntryProjection projection = WALEntryProjection.parse("nonceGroup, WRITE_ENTRY");
+		assertTrue(projection.includes(Field.NONCE_GROUP));
+		assertTrue(projection.includes(Field.WRITE_ENTRY));
+		assertFalse(projection.includes(Field.NONCE));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseUnknownField() {
+		WALEntryProjection.parse("nonce,rowKey");
+	}
+
+	@Test
+	public void testNone() throws Exception {
+		for (RecordFormat format : new RecordFormat[] { RecordFormat.JSON, RecordFormat.SMILE, RecordFormat.CBOR }) {
+			byte[] all = encode(format, WALEntryProjection.ALL);
+			byte[] none = encode(format, WALEntryProjection.NONE);
+			assertTrue(none.length < all.length);
+
+			HBaseWALEntry decoded = format.newDecoder().decode(none);
+			assertEquals("ns:table", decoded.getWalKey().getTableName());
+			assertEquals(Long.valueOf(1000L), decoded.getWalKey().getWriteTime());
+			assertNull(decoded.getWalKey().getNonce());
+			assertNull(decoded.getWalKey().getOrigLogSeqNum());
+			assertNull(decoded.getWalKey().getEncodedRegionName());
+			assertNull(decoded.getWalKey().getWriteEntry());
+			assertNull(decoded.getWalEdit().getFamilies());
+			assertNull(decoded.getWalEdit().getMETAFAMILY());
+			assertEquals(1, decoded.getWalEdit().getCells().size());
+		}
+	}
+
+	@Test
+	public void testTableOverride() throws Exception {
+		Configuration conf = new Configuration(false);
+		conf.set(ConfigurationUtil.PROJECTION, "none");
+		conf.set(ConfigurationUtil.PROJECTION + ".ns:table", "writeEntry");
+		ConfigurationUtil configUtil = new ConfigurationUtil(conf);
+		assertTrue(configUtil.isProjectionConfigured());
+		assertSame(WALEntryProjection.NONE, configUtil.getProjection(TableName.valueOf("other")));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		RecordFormat.JSON.newEncoder(configUtil::getProjection).encode(entry, out);
+		HBaseWALEntry decoded = RecordFormat.JSON.newDecoder().decode(out.toByteArray());
+		assertNotNull(decoded.getWalKey().getWriteEntry());
+		assertNull(decoded.getWalKey().getNonce());
+	}
+
+	@Test
+	public void testCheckProjections() {
+		Configuration conf = new Configuration(false);
+		conf.set(ConfigurationUtil.PROJECTION, "nonce");
+		conf.set(ConfigurationUtil.PROJECTION + ".ns:table", "writeEntry,famillies");
+		try {
+			new ConfigurationUtil(conf).checkProjections();
+			fail("Unknown field accepted");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains(ConfigurationUtil.PROJECTION + ".ns:table"));
+		}
+
+		conf.set(ConfigurationUtil.PROJECTION + ".ns:table", "writeEntry,families");
+		new ConfigurationUtil(conf).checkProjections();
+	}
+
+	private byte[] encode(RecordFormat format, WALEntryProjection projection) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		format.newEncoder(tableName -> projection).encode(entry, out);
+		return out.toByteArray();
+	}
+}
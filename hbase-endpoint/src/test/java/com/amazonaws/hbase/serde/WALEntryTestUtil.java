@@ -0,0 +1,64 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+import org.apache.hadoop.hbase.wal.WALKeyImpl;
+
+import com.amazonaws.hbase.model.HBaseWALEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Fixtures and helpers shared by the tests of the record formats.
+ */
+final class WALEntryTestUtil {
+	static final TableName TABLE = TableName.valueOf("ns:table");
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private WALEntryTestUtil() {
+	}
+
+	/**
+	 * @return a key of region "region" of TABLE, written at 1000.
+	 */
+	static WALKeyImpl newKey() {
+		return new WALKeyImpl(Bytes.toBytes("region"), TABLE, 1000L);
+	}
+
+	/**
+	 * Encode the entry with a new encoder of the format.
+	 * @param format
+	 * @param entry
+	 * @return the record
+	 * @throws IOException
+	 */
+	static byte[] encode(RecordFormat format, Entry entry) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		format.newEncoder().encode(entry, out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Json of a decoded entry, comparable across formats. The json decoder collects the families
+	 * in a HashSet, they're sorted first.
+	 * @param decoded
+	 * @return
+	 * @throws IOException
+	 */
+	@SuppressWarnings("unchecked")
+	static String toSortedJson(HBaseWALEntry decoded) throws IOException {
+		Set<byte[]> families = new TreeSet<byte[]>(Bytes.BYTES_COMPARATOR);
+		families.addAll(decoded.getWalEdit().getFamilies());
+		decoded.getWalEdit().setFamilies(families);
+		return OBJECT_MAPPER.writeValueAsString(decoded);
+	}
+}
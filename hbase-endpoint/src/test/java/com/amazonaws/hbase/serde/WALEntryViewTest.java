@@ -0,0 +1,118 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.serde;
+
+import static com.amazonaws.hbase.serde.WALEntryTestUtil.encode;
+import static com.amazonaws.hbase.serde.WALEntryTestUtil.newKey;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.apache.hadoop.hbase.ByteBufferKeyValue;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.regionserver.MultiVersionConcurrencyControl;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.wal.WAL.Entry;
+import org.apache.hadoop.hbase.wal.WALEdit;
+import org.apache.hadoop.hbase.wal.WALKeyImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.hbase.model.HBaseCell;
+import com.amazonaws.hbase.model.HBaseWALEntry;
+
+public class WALEntryViewTest {
+	private Entry entry;
+	private WALEntryView view;
+
+	@Before
+	public void setUp() {
+		WALEdit edit = new WALEdit();
+		for (int i = 0; i < 20; i++) {
+			edit.add(new KeyValue(Bytes.toBytes("row"), Bytes.toBytes(i < 12 ? "cf" : "af"),
+					Bytes.toBytes("q" + i), 1000L + i, Bytes.toBytes("value" + i)));
+		}
+		edit.add(new KeyValue(Bytes.toBytes("row2"), Bytes.toBytes("cf"), Bytes.toBytes("q"), 2L,
+				KeyValue.Type.DeleteColumn));
+		KeyValue kv = new KeyValue(Bytes.toBytes("row"), Bytes.toBytes("cf"), Bytes.toBytes("speed"), 3L,
+				new byte[300]);
+		edit.add(new ByteBufferKeyValue(ByteBuffer.wrap(kv.getBuffer()), kv.getOffset(), kv.getLength()));
+		WALKeyImpl key = newKey();
+		key.setWriteEntry(new MultiVersionConcurrencyControl().begin());
+		entry = new Entry(key, edit);
+		view = new WALEntryView();
+	}
+
+	@Test
+	public void testSameAsDecoder() throws Exception {
+		for (RecordFormat format : new RecordFormat[] { RecordFormat.BINARY, RecordFormat.GROUPED }) {
+			byte[] record = encode(format, entry);
+			HBaseWALEntry decoded = format.newDecoder().decode(record);
+
+			// Not at the start of the buffer, and reusing the view.
+			byte[] padded = new byte[record.length + 5];
+			System.arraycopy(record, 0, padded, 3, record.length);
+			view.wrap(ByteBuffer.wrap(padded, 3, record.length));
+
+			assertEquals(format == RecordFormat.GROUPED, view.isGrouped());
+			assertEquals(decoded.getWalKey().getWriteTime().longValue(), view.getWriteTime());
+			assertEquals(decoded.getWalKey().getSequenceId().longValue(), view.getSequenceId());
+			assertEquals(decoded.getWalKey().getNonce().longValue(), view.getNonce());
+			assertEquals("ns:table", view.getTableNameAsString());
+			assertTrue(view.matchingTableName(Bytes.toBytes("ns:table")));
+			assertEquals(6, view.getEncodedRegionNameLength());
+			assertTrue(view.hasWriteEntry());
+			assertEquals(decoded.getWalKey().getWriteEntry().getWriteNumber(), view.getWriteNumber());
+			assertFalse(view.isReplay());
+			assertEquals(22, view.getCellCount());
+
+			List<HBaseCell> cells = decoded.getWalEdit().getCells();
+			WALCellCursor cursor = view.cells();
+			for (HBaseCell cell : cells) {
+				assertTrue(cursor.next());
+				assertTrue(cursor.matchingRow(cell.getRow()));
+				assertTrue(cursor.matchingFamily(cell.getFamily()));
+				assertTrue(cursor.matchingQualifier(cell.getQualifier()));
+				assertArrayEquals(cell.getValue(), cursor.cloneValue());
+				assertEquals(cell.getTimeStamp(), cursor.getTimestamp());
+				assertEquals(cell.getType(), cursor.getType().toString());
+			}
+			assertFalse(cursor.next());
+
+			// cells() rewinds.
+			cursor = view.cells();
+			assertTrue(cursor.next());
+			assertArrayEquals(Bytes.toBytes("q0"), cursor.cloneQualifier());
+		}
+	}
+
+	@Test
+	public void testEmptyEdit() throws Exception {
+		Entry empty = new Entry(new WALKeyImpl(null, TableName.valueOf("table"), 1L), new WALEdit());
+		for (RecordFormat format : new RecordFormat[] { RecordFormat.BINARY, RecordFormat.GROUPED }) {
+			view.wrap(ByteBuffer.wrap(encode(format, empty)));
+			assertEquals(-1, view.getEncodedRegionNameLength());
+			assertFalse(view.hasWriteEntry());
+			assertEquals(0, view.getCellCount());
+			assertFalse(view.cells().next());
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testRejectsJson() throws Exception {
+		view.wrap(ByteBuffer.wrap(encode(RecordFormat.JSON, entry)));
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncated() throws Exception {
+		byte[] record = encode(RecordFormat.BINARY, entry);
+		view.wrap(ByteBuffer.wrap(record, 0, 45));
+	}
+}
@@ -3,8 +3,11 @@
 
 package com.amazonaws.hbase.datasink;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.HashMap;
 import java.util.Properties;
+import java.util.UUID;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.kafka.clients.CommonClientConfigs;
@@ -56,6 +59,12 @@ public class KafkaConfigurationUtil extends ConfigurationUtil {
 	public static final String KAFKA_TRANSACTION_TIMEOUT_CONFIG = 
 			REPLICATION_KAFKA +".transaction.timeout.ms";
 	
+	public static final String KAFKA_TRANSACTIONAL = 
+			REPLICATION_KAFKA +".transactional";
+	
+	public static final String KAFKA_TRANSACTIONAL_ID_CONFIG = 
+			REPLICATION_KAFKA +".transactional.id";
+	
 	public static final String KAFKA_SECURITY_PROTOCOL = 
 			REPLICATION_KAFKA +".security.protocol";
 	
@@ -134,6 +143,34 @@ public class KafkaConfigurationUtil extends ConfigurationUtil {
 		return this.conf.get(KAFKA_TRANSACTION_TIMEOUT_CONFIG,"60000");
 	}
 	
+	/**
+	 * Send every replicate() batch as one Kafka transaction.
+	 * Default: false
+	 * @return
+	 */
+	public boolean isTransactional() {
+		return this.conf.getBoolean(KAFKA_TRANSACTIONAL, false);
+	}
+	
+	/**
+	 * Get transactional.id, it has to be unique per region server and stay the same across its
+	 * restarts, so a restarted region server fences the transactions of its previous producer.
+	 * Default: hbase-replication-$HOSTNAME
+	 * @return
+	 */
+	public String getTransactionalId() {
+		String id = this.conf.get(KAFKA_TRANSACTIONAL_ID_CONFIG);
+		if (id != null) {
+			return id;
+		}
+		try {
+			return "hbase-replication-" + InetAddress.getLocalHost().getHostName();
+		} catch (UnknownHostException e) {
+			LOG.warn("Unable to resolve the host name, using a random transactional.id", e);
+			return "hbase-replication-" + UUID.randomUUID();
+		}
+	}
+	
 	/**
 	 * Get retry.backoff.ms
 	 * Default: 100
@@ -269,6 +306,7 @@ public class KafkaConfigurationUtil extends ConfigurationUtil {
         props.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG,this.getRequestTimeout());
         props.put(ProducerConfig.RETRIES_CONFIG,this.getRetries());
         props.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG,this.getRetryBackoff());
+        if ( this.isTransactional() ) props.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, this.getTransactionalId());
         if ( this.getSecurityProtocol() != null ) props.put(CommonClientConfigs.SECURITY_PROTOCOL_CONFIG,this.getSecurityProtocol());
         if ( this.getSecuritySSLKeyStoreLocation() != null ) props.put(SslConfigs.SSL_KEYSTORE_LOCATION_CONFIG, this.getSecuritySSLKeyStoreLocation());
         if ( this.getSecuritySSLTrustStoreLocation() != null ) props.put(SslConfigs.SSL_TRUSTSTORE_LOCATION_CONFIG, this.getSecuritySSLTrustStoreLocation());
@@ -7,50 +7,85 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.wal.WAL.Entry;
 import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.errors.TimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.amazonaws.hbase.DataSink;
+import com.amazonaws.hbase.DataSinkRecord;
 
+/**
+ * Data sink sending the records to the Kafka topics mapped to their tables. With
+ * hbase.replication.kafka.transactional every replicate() batch is sent in one Kafka transaction,
+ * so read_committed consumers see all of a batch or none of it, and a batch HBase retries after
+ * a failure doesn't leave duplicates for them. The producer is shared by the region server and
+ * runs one transaction at a time, concurrent replicate() calls wait in beginTransaction().
+ */
 public class KafkaDataSinkImpl extends DataSink {
 
 	private static final Logger LOG = LoggerFactory.getLogger(KafkaDataSinkImpl.class);
+	// Held from beginTransaction() to commitTransaction() or abortTransaction(), guards the shared producer.
+	private static final ReentrantLock transactionLock = new ReentrantLock();
 	private KafkaConfigurationUtil configUtil;
-	private Producer producer;
+	private Properties producerProperties;
+	private Producer<String, ByteBuffer> producer;
+	// Creates the sink's own producers, null to use the one shared by the region server.
+	private final Function<Properties, Producer<String, ByteBuffer>> creator;
 	private long sentMessageCount = 0L;
 
 	public KafkaDataSinkImpl(Configuration config) {
+		this(config, null);
+	}
+
+	/**
+	 * Constructor for tests, the sink creates its own producers with creator.
+	 * @param config
+	 * @param creator
+	 */
+	KafkaDataSinkImpl(Configuration config, Function<Properties, Producer<String, ByteBuffer>> creator) {
 		super(config);
+		this.creator = creator;
 	}
 
 	public List<Entry> filter(final List<Entry> oldEntries) {
 		
 		List<Entry> entries = new ArrayList<>();
 		for (Entry e : oldEntries) {
-			TableName tableName = e.getKey().getTableName();
-
-			if ( this.getConfigurationUtil().getTopicFromTableName(tableName.getNameAsString()) != null ) {
+			if (accept(e)) {
 				entries.add(e);
-			} else {
-				LOG.debug("Not mapped to stream: " + tableName.toString());
 			}
 		}
 
 		return entries;
 	}
+
+	@Override
+	public boolean accept(Entry e) {
+		TableName tableName = e.getKey().getTableName();
+
+		if ( this.getConfigurationUtil().getTopicFromTableName(tableName.getNameAsString()) != null ) {
+			return true;
+		}
+		LOG.debug("Not mapped to stream: {}", tableName);
+		return false;
+	}
 	
 	public synchronized void flush() {
-		producer.flush();
+		getProducer().flush();
 	}
 	
 	private KafkaConfigurationUtil getConfigurationUtil() {
@@ -61,6 +96,18 @@ public class KafkaDataSinkImpl extends DataSink {
 		return this.configUtil;
 	}
 
+	private Producer<String, ByteBuffer> getProducer() {
+		if (this.producerProperties == null) {
+			this.producerProperties = this.getConfigurationUtil().getConfigurationProperties();
+		}
+		if (this.creator == null) {
+			this.producer = KafkaProducerFactory.getProducer(this.producerProperties);
+		} else if (this.producer == null) {
+			this.producer = KafkaProducerFactory.createProducer(this.producerProperties, this.creator);
+		}
+		return this.producer;
+	}
+
 	@Override
 	public boolean isBlocking() {
 		return true;
@@ -68,68 +115,159 @@ public class KafkaDataSinkImpl extends DataSink {
 
 	@Override
 	public void putRecord(ByteBuffer buffer, String tablename) throws Exception {
-			this.producer = KafkaProducerFactory.getProducer(this.getConfigurationUtil().getConfigurationProperties());
-			long time = System.currentTimeMillis();
+		try {
+			putRecordAsync(new DataSinkRecord(buffer, tablename)).get(); // This will block
+		} catch (ExecutionException e) {
+			throw (Exception) e.getCause();
+		}
+	}
+
+	/**
+	 * Hands the record to the producer and returns right away. The future completes from the producer
+	 * callback, so a whole batch of sends shares the same produce requests and round trips. The
+	 * partition of the record is its key, so the records of a partition go to the same Kafka
+	 * partition in order. Records without a partition get a unique key.
+	 */
+	@Override
+	public CompletableFuture<Void> putRecordAsync(DataSinkRecord r) {
+		final Producer<String, ByteBuffer> producer = getProducer();
+		final long time = System.currentTimeMillis();
+		String key = r.getPartition();
+		if (key == null) {
 			Long index = time + sentMessageCount++;
-			final ProducerRecord<String, ByteBuffer> record =  new ProducerRecord<String, ByteBuffer>(
-					this.getConfigurationUtil().getTopicFromTableName(tablename), 
-					new Long(index).toString(), 
-					buffer);
-			try {
-				RecordMetadata metadata = (RecordMetadata) producer.send(record).get(); // This will block
-				long elapsedTime = System.currentTimeMillis() - time;
-				LOG.debug(
-						"sent record(key=%s ) " +  "meta(partition=%d, offset=%d) time=%d\n",
-						record.key(), 
-						record.value(), 
-						metadata.partition(),
-						metadata.offset(), 
-						elapsedTime);
-			} catch (ExecutionException e) {
-				LOG.error("Error in sending record" ,e);
-				if (e.getCause().getClass() == TimeoutException.class) {
-					LOG.error("Seems {} does not exist. checking ..", record.topic());
-					Properties config = new Properties();
-					config.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, this.configUtil.getBootstrapServers());
-					KafkaAdminUtil adminUtil = new KafkaAdminUtil(config); 
-					if (adminUtil.listTopics().contains(record.topic()) == false) {
-						if (this.configUtil.createTopicIfNotFound() == true) {
-							adminUtil.createTopic(record.topic(),
-										this.configUtil.getTopicPartitions(), 
-										this.configUtil.getTopicReplicationFactor());
+			key = index.toString();
+		}
+		final ProducerRecord<String, ByteBuffer> record =  new ProducerRecord<String, ByteBuffer>(
+				this.getConfigurationUtil().getTopicFromTableName(r.getTablename()), 
+				key, 
+				r.getPayload());
+		final CompletableFuture<Void> future = new CompletableFuture<Void>();
+		try {
+			producer.send(record, new Callback() {
+				@Override
+				public void onCompletion(RecordMetadata metadata, Exception exception) {
+					if (exception == null) {
+						LOG.debug(
+								"sent record(key={} ) meta(partition={}, offset={}) time={}",
+								record.key(), 
+								metadata.partition(),
+								metadata.offset(), 
+								System.currentTimeMillis() - time);
+						future.complete(null);
+					} else {
+						LOG.error("Error in sending record" ,exception);
+						if (exception instanceof TimeoutException) {
+							// Don't block the producer I/O thread with admin calls.
+							CompletableFuture.runAsync(() -> createTopicIfMissing(record.topic()));
 						}
+						future.completeExceptionally(exception);
 					}
 				}
+			});
+		} catch (Exception e) {
+			LOG.error("Error in sending record" ,e);
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	private void createTopicIfMissing(String topic) {
+		LOG.error("Seems {} does not exist. checking ..", topic);
+		Properties config = new Properties();
+		config.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, this.configUtil.getBootstrapServers());
+		KafkaAdminUtil adminUtil = new KafkaAdminUtil(config);
+		try {
+			if (adminUtil.listTopics().contains(topic) == false) {
+				if (this.configUtil.createTopicIfNotFound() == true) {
+					adminUtil.createTopic(topic,
+								this.configUtil.getTopicPartitions(),
+								this.configUtil.getTopicReplicationFactor());
+				}
 			}
+		} catch (Exception e) {
+			LOG.error("Unable to check topic " + topic, e);
+		}
 	}
 
 	@Override
 	public void putRecord(ByteBuffer buffer, String tablename, String parition) throws Exception {
-		throw new RuntimeException("Not implemented!");
-		
+		try {
+			putRecordAsync(new DataSinkRecord(buffer, tablename, parition)).get(); // This will block
+		} catch (ExecutionException e) {
+			throw (Exception) e.getCause();
+		}
 	}
 
 	@Override
 	public boolean supportsTransaction() {
-		// TODO Auto-generated method stub
-		return false;
+		return this.getConfigurationUtil().isTransactional();
 	}
 
+	/**
+	 * Waits until no other replicate() has a transaction open and begins one. The records sent by
+	 * this thread until commitTransaction() or abortTransaction() are part of it.
+	 */
 	@Override
 	public void beginTransaction() {
-		// TODO Auto-generated method stub
-		
+		transactionLock.lock();
+		try {
+			getProducer().beginTransaction();
+		} catch (RuntimeException e) {
+			LOG.error("Unable to begin transaction", e);
+			closeProducer();
+			transactionLock.unlock();
+			throw e;
+		}
 	}
 
+	/**
+	 * Commits the transaction, which flushes the records not sent yet and waits once for the
+	 * commit. The transaction is aborted if the commit fails, the exception is rethrown so the
+	 * batch is retried.
+	 */
 	@Override
 	public void commitTransaction() {
-		// TODO Auto-generated method stub
-		
+		if (!transactionLock.isHeldByCurrentThread()) {
+			return;
+		}
+		try {
+			producer.commitTransaction();
+		} catch (KafkaException e) {
+			LOG.error("Unable to commit transaction", e);
+			abort();
+			throw e;
+		} finally {
+			transactionLock.unlock();
+		}
 	}
 
 	@Override
 	public void abortTransaction() {
-		// TODO Auto-generated method stub
-		
+		if (!transactionLock.isHeldByCurrentThread()) {
+			return;
+		}
+		try {
+			abort();
+		} finally {
+			transactionLock.unlock();
+		}
+	}
+
+	private void abort() {
+		try {
+			producer.abortTransaction();
+		} catch (KafkaException e) {
+			// Fenced by a producer with our transactional.id, or otherwise unusable. A new producer
+			// aborts whatever this one left open when it initializes its transactions.
+			LOG.error("Unable to abort transaction", e);
+			closeProducer();
+		}
+	}
+
+	private void closeProducer() {
+		if (this.producer != null) {
+			KafkaProducerFactory.closeProducer(this.producer);
+			this.producer = null;
+		}
 	}
 }
@@ -4,7 +4,9 @@
 package com.amazonaws.hbase.datasink;
 
 import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.Properties;
+import java.util.function.Function;
 
 import org.apache.kafka.clients.admin.Admin;
 import org.apache.kafka.clients.admin.AdminClientConfig;
@@ -16,11 +18,50 @@ public class KafkaProducerFactory {
 	
 	private static Producer<String, ByteBuffer> producer = null;
 	
-	public static Producer<String, ByteBuffer> getProducer(Properties config) {
+	/**
+	 * The producer shared by the data sinks of the region server, created on first use. When the
+	 * configuration has a transactional.id, the producer's transactions are initialized before
+	 * it's returned, which also aborts the open transactions of a previous producer with that id.
+	 * @param config
+	 * @return
+	 */
+	public static synchronized Producer<String, ByteBuffer> getProducer(Properties config) {
 		
 		if (producer == null ) {
-			producer = new KafkaProducer<>(config);
+			producer = createProducer(config, KafkaProducer::new);
 		} 
 		return producer;
     }
+
+	/**
+	 * Create a producer that isn't shared, with its transactions initialized like getProducer().
+	 * @param config
+	 * @param creator creates the producer from the configuration
+	 * @return
+	 */
+	static Producer<String, ByteBuffer> createProducer(Properties config,
+			Function<Properties, Producer<String, ByteBuffer>> creator) {
+		Producer<String, ByteBuffer> created = creator.apply(config);
+		if (config.containsKey(ProducerConfig.TRANSACTIONAL_ID_CONFIG)) {
+			try {
+				created.initTransactions();
+			} catch (RuntimeException e) {
+				created.close(Duration.ZERO);
+				throw e;
+			}
+		}
+		return created;
+	}
+
+	/**
+	 * Close a producer that can't be used anymore, like a fenced transactional producer. The next
+	 * getProducer() creates a new one.
+	 * @param closed
+	 */
+	public static synchronized void closeProducer(Producer<String, ByteBuffer> closed) {
+		if (producer == closed) {
+			producer = null;
+		}
+		closed.close(Duration.ZERO);
+	}
 }
@@ -0,0 +1,154 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.datasink;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.ProducerFencedException;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.hbase.DataSinkRecord;
+
+public class KafkaDataSinkImplTest {
+	private List<MockProducer<String, ByteBuffer>> producers;
+	private boolean autoComplete;
+	private KafkaDataSinkImpl sink;
+
+	@Before
+	public void setUp() {
+		producers = new ArrayList<MockProducer<String, ByteBuffer>>();
+		autoComplete = true;
+		Configuration conf = new Configuration(false);
+		conf.set(KafkaConfigurationUtil.REPLICATION_KAFKA_TOPIC_TABLE_MAP, "table:topic");
+		conf.set(KafkaConfigurationUtil.KAFKA_BOOTSTRAP_SERVERS, "localhost:9092");
+		conf.setBoolean(KafkaConfigurationUtil.KAFKA_TRANSACTIONAL, true);
+		conf.set(KafkaConfigurationUtil.KAFKA_TRANSACTIONAL_ID_CONFIG, "hbase-replication-test");
+		sink = new KafkaDataSinkImpl(conf, props -> {
+			MockProducer<String, ByteBuffer> producer = new MockProducer<String, ByteBuffer>(autoComplete,
+					new StringSerializer(), new ByteBufferSerializer());
+			producers.add(producer);
+			return producer;
+		});
+	}
+
+	@After
+	public void tearDown() {
+		// Leaves the shared lock free for the other tests whatever happened.
+		sink.abortTransaction();
+	}
+
+	@Test
+	public void testCommit() throws Exception {
+		assertTrue(sink.supportsTransaction());
+		sink.beginTransaction();
+		List<CompletableFuture<Void>> futures = sink.putRecordsAsync(newRecords(3));
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).get();
+		sink.commitTransaction();
+
+		MockProducer<String, ByteBuffer> producer = producers.get(0);
+		assertTrue(producer.transactionInitialized());
+		assertTrue(producer.transactionCommitted());
+		assertEquals(1, producer.commitCount());
+		assertEquals(3, producer.history().size());
+	}
+
+	@Test
+	public void testAbortOnFailedSend() throws Exception {
+		autoComplete = false;
+		sink.beginTransaction();
+		List<CompletableFuture<Void>> futures = sink.putRecordsAsync(newRecords(2));
+		MockProducer<String, ByteBuffer> producer = producers.get(0);
+		producer.completeNext();
+		producer.errorNext(new KafkaException("broker down"));
+		assertFalse(futures.get(0).isCompletedExceptionally());
+		assertTrue(futures.get(1).isCompletedExceptionally());
+		sink.abortTransaction();
+
+		assertTrue(producer.transactionAborted());
+		assertFalse(producer.transactionCommitted());
+		assertTrue(producer.history().isEmpty());
+		assertFalse(producer.closed());
+	}
+
+	@Test
+	public void testFencedOnCommit() throws Exception {
+		sink.beginTransaction();
+		sink.putRecordsAsync(newRecords(1)).get(0).get();
+		MockProducer<String, ByteBuffer> fenced = producers.get(0);
+		fenced.fenceProducer();
+		try {
+			sink.commitTransaction();
+			fail("Commit of a fenced producer succeeded");
+		} catch (ProducerFencedException e) {
+			// expected
+		}
+		assertTrue(fenced.closed());
+
+		// The next batch gets a new producer, with its transactions initialized.
+		sink.beginTransaction();
+		sink.putRecordsAsync(newRecords(1)).get(0).get();
+		sink.commitTransaction();
+		assertEquals(2, producers.size());
+		MockProducer<String, ByteBuffer> producer = producers.get(1);
+		assertNotSame(fenced, producer);
+		assertTrue(producer.transactionInitialized());
+		assertTrue(producer.transactionCommitted());
+	}
+
+	@Test
+	public void testConcurrentBatchesWaitForCommit() throws Exception {
+		sink.beginTransaction();
+		ExecutorService thread = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> second = thread.submit(() -> {
+				sink.beginTransaction();
+				sink.putRecordsAsync(newRecords(1));
+				sink.commitTransaction();
+			});
+			try {
+				second.get(500, TimeUnit.MILLISECONDS);
+				fail("Second transaction began while the first one was open");
+			} catch (TimeoutException e) {
+				// expected, it waits for the first commit.
+			}
+			sink.putRecordsAsync(newRecords(1));
+			sink.commitTransaction();
+
+			second.get(5, TimeUnit.SECONDS);
+		} finally {
+			thread.shutdownNow();
+		}
+		assertEquals(2, producers.get(0).commitCount());
+	}
+
+	private static List<DataSinkRecord> newRecords(int count) {
+		List<DataSinkRecord> records = new ArrayList<DataSinkRecord>(count);
+		for (int i = 0; i < count; i++) {
+			records.add(new DataSinkRecord(ByteBuffer.wrap(("record" + i).getBytes(StandardCharsets.UTF_8)), "table"));
+		}
+		return records;
+	}
+}
@@ -10,9 +10,9 @@ import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.TableName;
@@ -21,6 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.amazonaws.hbase.DataSink;
+import com.amazonaws.hbase.DataSinkRecord;
 import com.amazonaws.hbase.UUIDHelper;
 import com.amazonaws.services.kinesis.producer.Attempt;
 import com.amazonaws.services.kinesis.producer.KinesisProducer;
@@ -144,41 +145,95 @@ public class KinesisDataSinkImpl extends DataSink {
 	 * @throws ExecutionException
 	 */
 	public void putRecord(ByteBuffer buffer, String tablename,String partition) throws IOException, InterruptedException, ExecutionException {
+		try {
+			putRecordAsync(new DataSinkRecord(buffer, tablename, partition)).get(); // this does block
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * putRecordAsync implementation. The record is handed to KPL, which aggregates and batches the
+	 * outstanding records into PutRecords calls, and the future completes from the KPL result.
+	 * Records without a partition go into a random partition. In asynchronous mode the future is
+	 * completed right away and failed records will be lost.
+	 * @param record
+	 * @return
+	 */
+	@Override
+	public CompletableFuture<Void> putRecordAsync(DataSinkRecord record) {
+		initProducer();
+
+		String partition = record.getPartition();
+		if (partition == null) {
+			partition = UUIDHelper.getBase64UUID();
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Putting record in random partition: " + partition);
+			}
+		}
+		final String digest = getPartitionKey(partition);
+		String destination = this.getConfigurationUtil().getStreamNameFromTableName(record.getTablename());
+		final long time = System.currentTimeMillis();
+
+		final CompletableFuture<Void> future = new CompletableFuture<Void>();
+		ListenableFuture<UserRecordResult> putFuture;
+		try {
+			putFuture = kinesis.addUserRecord(destination, digest, record.getPayload());
+		} catch (Exception e) {
+			future.completeExceptionally(e);
+			return future;
+		}
+
+		if (configUtil.isSynchPutsEnabled() == false) {
+			Futures.addCallback(putFuture,putRecordCallback, executor);
+			future.complete(null);
+			return future;
+		}
+
+		Futures.addCallback(putFuture, new FutureCallback<UserRecordResult>() {
+			@Override
+			public void onSuccess(UserRecordResult result) {
+				if (result.isSuccessful()) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug(
+								"Put record into shard= {} PartitionKey = {}, time={} 	"
+								, result.getShardId()
+								, digest
+								, System.currentTimeMillis() - time); 
+					}
+					future.complete(null);
+				} else {
+					for (Attempt attempt : result.getAttempts()) {
+						LOG.error(attempt.getErrorMessage());
+					}
+					future.completeExceptionally(new IOException("Record faild to replicate"));
+				}
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				future.completeExceptionally(t);
+			}
+		}, MoreExecutors.directExecutor());
+		return future;
+	}
+
+	private void initProducer() {
 		if (kinesis == null) { // creating the producer when there is a request.
 			KinesisProducerConfiguration config = configUtil.getKPLConfiguration();
 			LOG.debug("First Time producer. endpoint " + config.getKinesisEndpoint() + " port: " + config.getKinesisPort() );
 			this.kinesis = KinesisProducerFactory.getProducer(config);
 		}
-	
-		md.update(partition.getBytes());
-		String digest = Base64.getEncoder().encodeToString(md.digest());
-		String destination = this.getConfigurationUtil().getStreamNameFromTableName(tablename);
+	}
 
-			
-		long time = System.currentTimeMillis();
-		
-		if (configUtil.isSynchPutsEnabled()) {
-			Future<UserRecordResult> putFuture = (Future<UserRecordResult>) kinesis.addUserRecord(destination, digest, buffer);
-			UserRecordResult result = putFuture.get(); // this does block     
-		
-			if (result.isSuccessful()) {
-				if (LOG.isDebugEnabled()) {
-					LOG.debug(
-							"Put record into shard= {} PartitionKey = {}, time={} 	"
-							, result.getShardId()
-							, digest
-							, System.currentTimeMillis() - time); 
-				}	
-			} else {
-				for (Attempt attempt : result.getAttempts()) {
-					LOG.error(attempt.getErrorMessage());
-					throw new IOException("Record faild to replicate");
-				}
-			}	
-		} else {
-			ListenableFuture<UserRecordResult> putFuture =  kinesis.addUserRecord(destination, digest, buffer);
-			Futures.addCallback(putFuture,putRecordCallback, executor);
-		}
+	// MessageDigest isn't thread safe and replicate() runs on a thread per WAL group, a digest
+	// mixing two partitions would send a record to the wrong shard.
+	private synchronized String getPartitionKey(String partition) {
+		md.update(partition.getBytes());
+		return Base64.getEncoder().encodeToString(md.digest());
 	}
 
 	/**
@@ -214,17 +269,24 @@ public class KinesisDataSinkImpl extends DataSink {
 		
 		List<Entry> entries = new ArrayList<>();
 		for (Entry e : oldEntries) {
-			TableName tableName = e.getKey().getTableName();
-
-			if ( this.getConfigurationUtil().getStreamNameFromTableName(tableName.getNameAsString()) != null ) {
+			if (accept(e)) {
 				entries.add(e);
-			} else {
-				LOG.debug("Not mapped to stream: " + tableName.toString());
 			}
 		}
 		return entries;
 	}
 
+	@Override
+	public boolean accept(Entry e) {
+		TableName tableName = e.getKey().getTableName();
+
+		if ( this.getConfigurationUtil().getStreamNameFromTableName(tableName.getNameAsString()) != null ) {
+			return true;
+		}
+		LOG.debug("Not mapped to stream: {}", tableName);
+		return false;
+	}
+
 	@Override
 	public boolean supportsTransaction() {
 		return false;
@@ -17,20 +17,22 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.KafkaEvent;
 import com.amazonaws.services.lambda.runtime.events.KafkaEvent.KafkaEventRecord;
 import com.amazonaws.util.Base64;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.amazonaws.hbase.model.HBaseCell;
 import com.amazonaws.hbase.model.HBaseWALEntry;
+import com.amazonaws.hbase.serde.CompressionCodec;
+import com.amazonaws.hbase.serde.CompressionCodecs;
+import com.amazonaws.hbase.serde.RecordFormat;
+import com.amazonaws.hbase.serde.WALEntryEnvelopeDecoder;
+import com.amazonaws.hbase.serde.ZstdDictionaryCodec;
+import com.amazonaws.hbase.serde.ZstdDictionaryStore;
 import com.amazonaws.regions.Regions;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.GZIPInputStream;
 
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.TableName;
@@ -43,11 +45,16 @@ import org.apache.hadoop.hbase.client.Table;
 // Handler value: example.HandleKinesis
 public class KafkaHandler implements RequestHandler<KafkaEvent, String> {
 	private LambdaLogger logger;
-	private ObjectMapper mapper = new ObjectMapper();
 	private RecordValidator validator = new RecordValidator();
 	private String clusterId=System.getenv("CLUSTERID");
 	private String tName=System.getenv("TABLENAME");
-	private boolean compressionEnabled = Boolean.getBoolean(System.getenv("COMPRESSIONENABLED"));
+	// Format and compression of records without envelope, enveloped records say their own.
+	// COMPRESSIONCODEC takes precedence over COMPRESSIONENABLED, which means gzip.
+	private boolean compressionEnabled = Boolean.parseBoolean(System.getenv("COMPRESSIONENABLED"));
+	private String compressionCodec = System.getenv("COMPRESSIONCODEC");
+	// Where the endpoint publishes its zstd dictionaries, hbase.replication.zstd-dictionary.dir.
+	private String zstdDictionaryDir = System.getenv("ZSTDDICTIONARYDIR");
+	private WALEntryEnvelopeDecoder decoder;
 	
 	private Configuration configuration = HBaseConfiguration.create();
 	private TableName tableName = TableName.valueOf(tName);	
@@ -65,6 +72,9 @@ public class KafkaHandler implements RequestHandler<KafkaEvent, String> {
 				  .getPath();
 		configuration.addResource(new Path(path));
 		configuration.set("hbase.zookeeper.quorum",masterPrivateIpAddr );
+
+		decoder = newDecoder(System.getenv("RECORDFORMAT"), compressionCodec, compressionEnabled, zstdDictionaryDir,
+				configuration);
 		System.out.println("zookeeper.quorum:" + masterPrivateIpAddr);
 		// throw and exception if Hbase is not available.
 		HBaseAdmin.available(configuration);
@@ -74,6 +84,29 @@ public class KafkaHandler implements RequestHandler<KafkaEvent, String> {
 		
 	}
 	
+	/**
+	 * Decoder of the records, from the handler's environment variables.
+	 * @param recordFormat RECORDFORMAT
+	 * @param compressionCodec COMPRESSIONCODEC
+	 * @param compressionEnabled COMPRESSIONENABLED
+	 * @param zstdDictionaryDir ZSTDDICTIONARYDIR
+	 * @param configuration configuration of the dictionary directory's file system
+	 * @return
+	 * @throws IOException if the dictionary directory's file system could not be initialized.
+	 */
+	static WALEntryEnvelopeDecoder newDecoder(String recordFormat, String compressionCodec, boolean compressionEnabled,
+			String zstdDictionaryDir, Configuration configuration) throws IOException {
+		CompressionCodec defaultCodec = compressionCodec != null
+				? CompressionCodecs.forName(compressionCodec, CompressionCodecs.DEFAULT_LEVEL)
+				: compressionEnabled ? CompressionCodecs.GZIP : CompressionCodecs.NONE;
+		if (zstdDictionaryDir != null) {
+			return new WALEntryEnvelopeDecoder(RecordFormat.fromString(recordFormat), defaultCodec,
+					new ZstdDictionaryCodec(new ZstdDictionaryStore(zstdDictionaryDir, configuration,
+							CompressionCodecs.DEFAULT_LEVEL)));
+		}
+		return new WALEntryEnvelopeDecoder(RecordFormat.fromString(recordFormat), defaultCodec);
+	}
+
 	@Override
 	public String handleRequest(KafkaEvent event, Context context) {
 		logger =  context.getLogger();
@@ -84,29 +117,25 @@ public class KafkaHandler implements RequestHandler<KafkaEvent, String> {
 		for (String topic : topicRecords.keySet()) {
 			for ( KafkaEventRecord record: topicRecords.get(topic)) {
 				try {
-					byte[] dataBytes;
-					if (compressionEnabled ==true) {
-					dataBytes = gzipDecompress(record.getValue().getBytes());
-					}  else {
-						dataBytes = record.getValue().getBytes();
-					}
-		
-					HBaseWALEntry entry = mapper.readValue(Base64.decode(dataBytes),HBaseWALEntry.class);
-					for (HBaseCell c : (List<HBaseCell>)entry.getWalEdit().getCells())  {
-						if (c.getType().toLowerCase().compareTo("put")==0) {
-							try {
-								float score = validator.getScore(c);
-								writeRecord(c.getRow(),c.getFamily(),"score".getBytes(), new Float(score).toString().getBytes());
-								logger.log(new String(c.getRow())+ " speed:" + new String(c.getValue()) + " score: "+ score );
-							
-							} catch (Exception e) {
-								// We are ignoring invalid records.
-								logger.log("InvalidRecord: " + e.getMessage());
+					byte[] dataBytes = Base64.decode(record.getValue());
+					// Batch records hold several entries, others just one.
+					for (HBaseWALEntry entry : decoder.decodeAll(dataBytes)) {
+						for (HBaseCell c : (List<HBaseCell>)entry.getWalEdit().getCells())  {
+							if (c.getType().toLowerCase().compareTo("put")==0) {
+								try {
+									float score = validator.getScore(c);
+									writeRecord(c.getRow(),c.getFamily(),"score".getBytes(), new Float(score).toString().getBytes());
+									logger.log(new String(c.getRow())+ " speed:" + new String(c.getValue()) + " score: "+ score );
+								
+								} catch (Exception e) {
+									// We are ignoring invalid records.
+									logger.log("InvalidRecord: " + e.getMessage());
+								}
+							} else {
+								logger.log("InvalidRecord: " + new String (dataBytes));
 							}
-						} else {
-							logger.log("InvalidRecord: " + new String (dataBytes));
-						}
-					}	
+						}	
+					}
 				} catch (IOException e) {
 					logger.log(e.getMessage() + " " + e.getStackTrace());
 				}
@@ -115,29 +144,6 @@ public class KafkaHandler implements RequestHandler<KafkaEvent, String> {
 		return response;
 	}
 	
-	/**
-	 * Decompress byte from Gzip
-	 * 
-	 * @param bytes	bytes to decompress
-	 * @return 	returns bytes
-	 * @throws IOException
-	 */
-	private byte[] gzipDecompress(byte[] bytes) throws IOException {
-		ByteArrayInputStream byteStream = new ByteArrayInputStream(bytes);
-		GZIPInputStream zipStream = new GZIPInputStream(byteStream);
-		ByteArrayOutputStream out = new ByteArrayOutputStream();
-		
-		byte[] buffer = new byte[1024];
-		int len;
-		while ((len = zipStream.read(buffer)) > 0) {
-		    out.write(buffer, 0, len);
-		}
-		zipStream.close();
-		out.close();
-		
-		return out.toByteArray();
-	}
-	
 	public void writeRecord(byte[] rowKey,byte[] cFamily, byte[] qualifier, byte[] value ) throws Exception {
 			Put p = new Put(rowKey);
 			p.addColumn(cFamily, qualifier, value);
@@ -0,0 +1,99 @@
+// Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: MIT-0
+
+package com.amazonaws.hbase.lambda;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.hbase.model.HBaseCell;
+import com.amazonaws.hbase.model.HBaseWALEdit;
+import com.amazonaws.hbase.model.HBaseWALEntry;
+import com.amazonaws.hbase.model.HBaseWALKey;
+import com.amazonaws.hbase.serde.CompressionCodec;
+import com.amazonaws.hbase.serde.CompressionCodecs;
+import com.amazonaws.hbase.serde.RecordEnvelope;
+import com.amazonaws.hbase.serde.RecordFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Decodes records of every codec the way the handler does, on the function's own classpath, so
+ * a codec library missing from the function fails here rather than in Lambda.
+ */
+public class KinesisHandlerTest {
+	private static final String[] CODECS = { "none", "gzip", "zstd", "lz4", "snappy" };
+
+	private byte[] json;
+
+	@Before
+	public void setUp() throws Exception {
+		HBaseCell cell = new HBaseCell();
+		cell.setRow("row1".getBytes("UTF-8"));
+		cell.setFamily("cf".getBytes("UTF-8"));
+		cell.setQualifier("speed".getBytes("UTF-8"));
+		cell.setValue("42".getBytes("UTF-8"));
+		cell.setType("Put");
+		cell.setTimeStamp(1000L);
+		List<HBaseCell> cells = new ArrayList<HBaseCell>();
+		cells.add(cell);
+		HBaseWALEdit<HBaseCell> edit = new HBaseWALEdit<HBaseCell>();
+		edit.setCells(cells);
+		HBaseWALKey key = new HBaseWALKey();
+		key.setTableName("table");
+		key.setWriteTime(1000L);
+		key.setSequenceId(1L);
+		HBaseWALEntry entry = new HBaseWALEntry();
+		entry.setWalKey(key);
+		entry.setWalEdit(edit);
+		json = new ObjectMapper().writeValueAsBytes(entry);
+	}
+
+	@Test
+	public void testDecodeCodecWithoutEnvelope() throws Exception {
+		for (String name : CODECS) {
+			byte[] record = compress(CompressionCodecs.forName(name, CompressionCodecs.DEFAULT_LEVEL), false);
+
+			assertDecoded(name, KinesisHandler.newDecoder("json", name, false, null, new Configuration())
+					.decodeAll(record));
+		}
+	}
+
+	@Test
+	public void testDecodeCodecWithEnvelope() throws Exception {
+		for (String name : CODECS) {
+			byte[] record = compress(CompressionCodecs.forName(name, CompressionCodecs.DEFAULT_LEVEL), true);
+
+			// The envelope names the codec, whatever COMPRESSIONCODEC says.
+			assertDecoded(name, KinesisHandler.newDecoder(null, null, false, null, new Configuration())
+					.decodeAll(record));
+		}
+	}
+
+	private byte[] compress(CompressionCodec codec, boolean envelope) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		if (envelope) {
+			new RecordEnvelope(RecordFormat.JSON, codec.getId()).writeHeader(bytes);
+		}
+		try (OutputStream out = codec.compress(bytes)) {
+			out.write(json);
+		}
+		return bytes.toByteArray();
+	}
+
+	private void assertDecoded(String codec, List<HBaseWALEntry> entries) throws Exception {
+		assertEquals(codec, 1, entries.size());
+		HBaseCell cell = (HBaseCell) entries.get(0).getWalEdit().getCells().get(0);
+		assertArrayEquals(codec, "row1".getBytes("UTF-8"), cell.getRow());
+		assertArrayEquals(codec, "42".getBytes("UTF-8"), cell.getValue());
+	}
+}